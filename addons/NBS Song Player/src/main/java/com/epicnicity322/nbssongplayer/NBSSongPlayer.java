@@ -50,6 +50,10 @@ public final class NBSSongPlayer extends PMSAddon implements Listener {
     private static final @NotNull Path nbsSongsFolder = PlayMoreSoundsCore.getFolder().resolve("Note Block Songs");
     private static final @NotNull HashMap<String, Song> songs = new HashMap<>();
     private static final @NotNull HashMap<String, RadioSongPlayer> playingSongs = new HashMap<>();
+    /**
+     * Songs to stop when leaving regions, keyed by "region;uuid;delay". This addon is built against PlayMoreSounds
+     * 4.1.2, which has no StopLedgers, so it keeps its own map until it is moved to the new API.
+     */
     private final @NotNull HashMap<String, HashSet<String>> soundsToStop = new HashMap<>();
 
     /**
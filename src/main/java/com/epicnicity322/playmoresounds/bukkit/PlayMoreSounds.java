@@ -31,7 +31,11 @@ import com.epicnicity322.playmoresounds.bukkit.gui.inventories.ListInventory;
 import com.epicnicity322.playmoresounds.bukkit.listeners.*;
 import com.epicnicity322.playmoresounds.bukkit.metrics.Metrics;
 import com.epicnicity322.playmoresounds.bukkit.region.RegionManager;
+import com.epicnicity322.playmoresounds.bukkit.sound.AsyncSoundQueue;
+import com.epicnicity322.playmoresounds.bukkit.sound.ListenerCache;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableSound;
+import com.epicnicity322.playmoresounds.bukkit.sound.PlayerGrid;
+import com.epicnicity322.playmoresounds.bukkit.sound.SoundBus;
 import com.epicnicity322.playmoresounds.bukkit.util.ListenerRegister;
 import com.epicnicity322.playmoresounds.bukkit.util.UpdateManager;
 import com.epicnicity322.playmoresounds.core.PlayMoreSoundsCore;
@@ -220,6 +224,11 @@ public final class PlayMoreSounds extends JavaPlugin {
         UpdateManager.loadUpdater(instance);
         ListInventory.refreshListInventories();
         OnPlayerResourcePackStatus.load(instance);
+        PlayerGrid.load(instance);
+        SoundBus.load(instance);
+        ListenerCache.load(instance);
+        TransitionPipeline.load(instance);
+        AsyncSoundQueue.load(instance);
 
         if (onReload == null) return exceptions;
 
@@ -283,6 +292,18 @@ public final class PlayMoreSounds extends JavaPlugin {
             var pm = Bukkit.getPluginManager();
 
             OnPlayerResourcePackStatus.load(this);
+            // Registering player grid used for radius lookups.
+            PlayerGrid.load(this);
+            // Registering sound bus flusher, if enabled.
+            SoundBus.load(this);
+            // Registering listener validation cache invalidators.
+            ListenerCache.load(this);
+            // Registering biome cache invalidator.
+            BiomeCache.load(this);
+            // Registering region and biome transition worker, if enabled.
+            TransitionPipeline.load(this);
+            // Registering the task that plays sounds of async events.
+            AsyncSoundQueue.load(this);
             // Registering region wand tool listener.
             pm.registerEvents(new OnPlayerInteract(), this);
             // Registering region enter event caller.
@@ -26,8 +26,12 @@ import com.epicnicity322.playmoresounds.bukkit.gui.inventories.RichSoundInventor
 import com.epicnicity322.playmoresounds.bukkit.listeners.OnPlayerInteract;
 import com.epicnicity322.playmoresounds.bukkit.region.RegionManager;
 import com.epicnicity322.playmoresounds.bukkit.region.SoundRegion;
+import com.epicnicity322.playmoresounds.bukkit.sound.AsyncSoundQueue;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayRichSoundEvent;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlaySoundEvent;
+import com.epicnicity322.playmoresounds.bukkit.sound.RateLimiter;
+import com.epicnicity322.playmoresounds.bukkit.sound.SoundBus;
+import com.epicnicity322.playmoresounds.bukkit.sound.SoundScheduler;
 import com.epicnicity322.playmoresounds.bukkit.util.ListenerRegister;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
 import com.epicnicity322.playmoresounds.core.util.PMSHelper;
@@ -44,6 +48,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -139,6 +144,40 @@ public final class DevSubCommand extends Command {
                     soundLoggerRegistered.set(true);
                 }
             }
+            case "sound bus" -> {
+                long sent = SoundBus.getSentPackets();
+                long saved = SoundBus.getSavedPackets();
+
+                sender.sendMessage("Sound bus " + (Configurations.CONFIG.getConfigurationHolder().getConfiguration().getBoolean("Performance.Coalesce Sounds").orElse(false) ? "enabled" : "disabled") + ".");
+                sender.sendMessage("Packets sent: " + sent + " | Packets saved: " + saved + " (" + (sent + saved == 0 ? 0 : saved * 100 / (sent + saved)) + "%)");
+            }
+            case "sound bus reset" -> {
+                SoundBus.resetCounters();
+                sender.sendMessage("Sound bus counters reset.");
+            }
+            case "async queue" -> {
+                sender.sendMessage("Async sound queue depth: " + AsyncSoundQueue.getDepth() + " | Peak depth: " + AsyncSoundQueue.getPeakDepth());
+                sender.sendMessage("Sounds played: " + AsyncSoundQueue.getPlayed() + " | Sounds dropped: " + AsyncSoundQueue.getDropped());
+            }
+            case "async queue reset" -> {
+                AsyncSoundQueue.resetCounters();
+                sender.sendMessage("Async sound queue counters reset.");
+            }
+            case "benchmark delays" -> benchmarkDelays(sender, 10000);
+            case "throttled" -> {
+                HashMap<String, Long> throttled = RateLimiter.getThrottled();
+
+                if (throttled.isEmpty()) {
+                    sender.sendMessage("No sounds were throttled.");
+                } else {
+                    sender.sendMessage("Throttled plays by sound:");
+                    throttled.forEach((sound, amount) -> sender.sendMessage(sound + ": " + amount));
+                }
+            }
+            case "throttled reset" -> {
+                RateLimiter.resetThrottled();
+                sender.sendMessage("Throttled plays counters reset.");
+            }
             default -> {
                 if (args.length < 3) return;
                 var lang = PlayMoreSounds.getLanguage();
@@ -247,6 +286,60 @@ public final class DevSubCommand extends Command {
         }
     }
 
+    /**
+     * Compares bukkit's scheduler against {@link SoundScheduler} by scheduling the same amount of delayed tasks in both,
+     * spread through 100 ticks. The per tick cost is the time between the first and last task that ran in each tick.
+     */
+    private static void benchmarkDelays(@NotNull CommandSender sender, int amount) {
+        var plugin = PlayMoreSounds.getInstance();
+        var scheduler = Bukkit.getScheduler();
+        long[][] bukkitTicks = new long[100][2];
+        long[][] wheelTicks = new long[100][2];
+        int pendingBefore = scheduler.getPendingTasks().size();
+
+        sender.sendMessage("Scheduling " + amount + " delayed tasks through bukkit's scheduler.");
+
+        long start = System.nanoTime();
+        for (int i = 0; i < amount; ++i) {
+            int tick = i % 100;
+            scheduler.runTaskLater(plugin, () -> benchmarkRun(bukkitTicks[tick]), tick + 1);
+        }
+        long bukkitScheduling = System.nanoTime() - start;
+        int bukkitPending = scheduler.getPendingTasks().size() - pendingBefore;
+
+        scheduler.runTaskLater(plugin, () -> {
+            sender.sendMessage("Scheduling " + amount + " delayed tasks through the sound scheduler.");
+
+            int wheelPendingBefore = SoundScheduler.getPendingTasks();
+            int pendingBeforeWheel = scheduler.getPendingTasks().size();
+            long wheelStart = System.nanoTime();
+            for (int i = 0; i < amount; ++i) {
+                int tick = i % 100;
+                SoundScheduler.schedule(() -> benchmarkRun(wheelTicks[tick]), tick + 1);
+            }
+            long wheelScheduling = System.nanoTime() - wheelStart;
+            int wheelPending = SoundScheduler.getPendingTasks() - wheelPendingBefore;
+            int wheelBukkitPending = scheduler.getPendingTasks().size() - pendingBeforeWheel;
+
+            scheduler.runTaskLater(plugin, () -> {
+                sender.sendMessage("Bukkit scheduler: " + bukkitScheduling / 1000 + "us to schedule | " + bukkitPending + " pending bukkit tasks | " + averageTickCost(bukkitTicks) + "ns per tick");
+                sender.sendMessage("Sound scheduler: " + wheelScheduling / 1000 + "us to schedule | " + wheelBukkitPending + " pending bukkit tasks (" + wheelPending + " in wheel) | " + averageTickCost(wheelTicks) + "ns per tick");
+            }, 110);
+        }, 110);
+    }
+
+    private static void benchmarkRun(long[] tick) {
+        long now = System.nanoTime();
+        if (tick[0] == 0) tick[0] = now;
+        tick[1] = now;
+    }
+
+    private static long averageTickCost(long[][] ticks) {
+        long total = 0;
+        for (long[] tick : ticks) total += tick[1] - tick[0];
+        return total / ticks.length;
+    }
+
     private String join(String[] args) {
         var builder = new StringBuilder();
 
@@ -25,6 +25,7 @@ import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.bukkit.command.CommandUtils;
 import com.epicnicity322.playmoresounds.bukkit.gui.inventories.RegionSoundInventory;
 import com.epicnicity322.playmoresounds.bukkit.listeners.OnPlayerInteract;
+import com.epicnicity322.playmoresounds.bukkit.region.BorderRenderer;
 import com.epicnicity322.playmoresounds.bukkit.region.RegionManager;
 import com.epicnicity322.playmoresounds.bukkit.region.SoundRegion;
 import com.epicnicity322.playmoresounds.bukkit.util.UniqueRunnable;
@@ -34,11 +35,9 @@ import com.epicnicity322.playmoresounds.core.util.PMSHelper;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.Particle;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.event.player.PlayerTeleportEvent;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -46,14 +45,8 @@ import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.Collectors;
 
 public final class RegionSubCommand extends Command implements Helpable {
-    /**
-     * Borders are quite heavy on performance so there is a maximum amount of borders that can be shown at the same time.
-     */
-    private static final @NotNull AtomicInteger showingBorders = new AtomicInteger(0);
     private static final ExecutorService regionExecutor = Executors.newSingleThreadExecutor();
     private final @NotNull PlayMoreSounds plugin;
 
@@ -231,21 +224,13 @@ public final class RegionSubCommand extends Command implements Helpable {
             var min = region.getMinDiagonal();
             var max = region.getMaxDiagonal();
 
-            // Filtering so it can check only the regions that are on this world and the regions that are not owned by the sender.
-            Set<SoundRegion> regionsOnWorld = RegionManager.getRegions().stream().filter(otherRegion -> !Objects.equals(otherRegion.getCreator(), creator) && otherRegion.getMaxDiagonal().getWorld().equals(max.getWorld())).collect(Collectors.toSet());
-
-            for (int x = min.getBlockX(); x <= max.getBlockX(); ++x)
-                for (int y = min.getBlockY(); y <= max.getBlockY(); ++y)
-                    for (int z = min.getBlockZ(); z <= max.getBlockZ(); ++z)
-                        for (SoundRegion otherRegion : regionsOnWorld) {
-                            var otherMin = otherRegion.getMinDiagonal();
-                            var otherMax = otherRegion.getMaxDiagonal();
-
-                            if (x >= otherMin.getBlockX() && x <= otherMax.getBlockX() & y >= otherMin.getBlockY() && y <= otherMax.getBlockY() & z >= otherMin.getBlockZ() && z <= otherMax.getBlockZ()) {
-                                lang.send(sender, lang.get("Region.Select.Error.Overlap"));
-                                return;
-                            }
-                        }
+            // Regions not owned by the sender can't have any block inside the selected area.
+            for (SoundRegion otherRegion : RegionManager.getRegionsIntersecting(min, max)) {
+                if (!Objects.equals(otherRegion.getCreator(), creator)) {
+                    lang.send(sender, lang.get("Region.Select.Error.Overlap"));
+                    return;
+                }
+            }
         }
 
         RegionManager.add(region);
@@ -256,7 +241,6 @@ public final class RegionSubCommand extends Command implements Helpable {
 
     private void info(@NotNull String label, @NotNull CommandSender sender, @NotNull String[] args) {
         var lang = PlayMoreSounds.getLanguage();
-        var config = Configurations.CONFIG.getConfigurationHolder().getConfiguration();
         Set<SoundRegion> regions;
 
         if (args.length > 2) {
@@ -287,8 +271,8 @@ public final class RegionSubCommand extends Command implements Helpable {
         var random = new Random();
 
         for (SoundRegion region : regions) {
-            // Checking if particles should be sent.
-            if (sender instanceof Player player && showingBorders.get() < config.getNumber("Sound Regions.Border.Max Showing Borders").orElse(10).intValue()) {
+            // Showing border particles, the renderer checks if the max showing borders was reached.
+            if (sender instanceof Player player) {
                 int particleCount;
                 double r, g, b;
 
@@ -305,17 +289,7 @@ public final class RegionSubCommand extends Command implements Helpable {
                     b = random.nextDouble();
                 }
 
-                showingBorders.incrementAndGet();
-
-                BukkitTask repeatingTask = Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-                    for (Location border : region.getBorder())
-                        player.spawnParticle(Particle.NOTE, border, particleCount, r, g, b);
-                }, 0, 5);
-
-                Bukkit.getScheduler().runTaskLater(plugin, () -> {
-                    repeatingTask.cancel();
-                    showingBorders.decrementAndGet();
-                }, config.getNumber("Sound Regions.Border.Showing Time").orElse(140).longValue());
+                BorderRenderer.show(player, region, particleCount, r, g, b);
             }
 
             lang.send(sender, lang.get("Region.Info.Header").replace("<name>", region.getName()));
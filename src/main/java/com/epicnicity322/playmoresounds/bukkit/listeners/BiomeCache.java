@@ -0,0 +1,166 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.listeners;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Biome;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Caches the biomes sampled by biome sounds, so players moving around don't need to get the biome from the world every
+ * time they move.
+ * <p>
+ * Biomes are stored by the game in cells of 4x4x4 blocks, so the cache keeps the biome of each cell, grouped by chunk
+ * section of 16x16x16 blocks. Sections are removed when their chunk unloads, and the whole cache is cleared if it gets
+ * larger than {@link #MAX_SECTIONS}. Biomes changed by commands or plugins are seen once the chunk unloads.
+ * <p>
+ * The cache is only used on the main thread.
+ */
+public final class BiomeCache implements Listener {
+    private static final @NotNull BiomeCache instance = new BiomeCache();
+    private static final int MAX_SECTIONS = 4096;
+    /**
+     * Worlds are packed in the keys of sections with 8 bits, so biomes of worlds past this amount are not cached.
+     */
+    private static final int MAX_WORLDS = 256;
+    private static final byte UNKNOWN = -1;
+    private static final @NotNull Biome @NotNull [] biomes = Biome.values();
+    private static final @NotNull HashMap<UUID, Integer> worldIndexes = new HashMap<>();
+    private static final @NotNull HashMap<Long, byte[]> sections = new HashMap<>();
+    private static boolean loaded = false;
+
+    static {
+        PlayMoreSounds.onDisable(sections::clear);
+    }
+
+    private BiomeCache() {
+    }
+
+    /**
+     * Registers the listener that removes the biomes of unloaded chunks from the cache.
+     *
+     * @param plugin The plugin to register the listener.
+     */
+    public static void load(@NotNull PlayMoreSounds plugin) {
+        if (loaded) HandlerList.unregisterAll(instance);
+
+        sections.clear();
+        Bukkit.getPluginManager().registerEvents(instance, plugin);
+        loaded = true;
+    }
+
+    /**
+     * Gets the biome of a location through the cache, or from the world if this is not called on the main thread.
+     *
+     * @param location The location to get the biome.
+     * @return The biome of the location.
+     */
+    static @NotNull Biome getBiome(@NotNull Location location) {
+        World world = location.getWorld();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+
+        if (!loaded || !Bukkit.isPrimaryThread() || biomes.length > Byte.MAX_VALUE) return world.getBiome(x, y, z);
+
+        int worldIndex = worldIndex(world);
+        if (worldIndex == -1) return world.getBiome(x, y, z);
+
+        long key = sectionKey(worldIndex, x >> 4, y >> 4, z >> 4);
+        byte[] section = sections.get(key);
+
+        if (section == null) {
+            if (sections.size() >= MAX_SECTIONS) sections.clear();
+
+            section = new byte[64];
+            Arrays.fill(section, UNKNOWN);
+            sections.put(key, section);
+        }
+
+        int cell = ((x >> 2) & 3) << 4 | ((y >> 2) & 3) << 2 | ((z >> 2) & 3);
+        byte biome = section[cell];
+
+        if (biome == UNKNOWN) {
+            Biome sampled = world.getBiome(x, y, z);
+            section[cell] = (byte) sampled.ordinal();
+            return sampled;
+        }
+
+        return biomes[biome];
+    }
+
+    /**
+     * Whether two locations are in the same biome cell, and therefore in the same biome.
+     *
+     * @param location1 The first location.
+     * @param location2 The second location.
+     * @return If both locations are in the same world and 4x4x4 biome cell.
+     */
+    static boolean isSameCell(@NotNull Location location1, @NotNull Location location2) {
+        return location1.getBlockX() >> 2 == location2.getBlockX() >> 2
+                && location1.getBlockY() >> 2 == location2.getBlockY() >> 2
+                && location1.getBlockZ() >> 2 == location2.getBlockZ() >> 2
+                && location1.getWorld().equals(location2.getWorld());
+    }
+
+    private static int worldIndex(@NotNull World world) {
+        Integer index = worldIndexes.get(world.getUID());
+
+        if (index == null) {
+            if (worldIndexes.size() >= MAX_WORLDS) return -1;
+            index = worldIndexes.size();
+            worldIndexes.put(world.getUID(), index);
+        }
+
+        return index;
+    }
+
+    private static long sectionKey(int worldIndex, int sectionX, int sectionY, int sectionZ) {
+        // 8 bits for world, 22 bits for x and z, which fit the 30 million blocks world border, and 12 bits for y.
+        return ((long) worldIndex << 56) | ((sectionX & 0x3FFFFFL) << 34) | ((sectionZ & 0x3FFFFFL) << 12) | (sectionY & 0xFFFL);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent event) {
+        if (sections.isEmpty()) return;
+
+        Chunk chunk = event.getChunk();
+        World world = chunk.getWorld();
+        Integer worldIndex = worldIndexes.get(world.getUID());
+        if (worldIndex == null) return;
+
+        int maxSection = (world.getMaxHeight() - 1) >> 4;
+
+        for (int sectionY = world.getMinHeight() >> 4; sectionY <= maxSection; ++sectionY)
+            sections.remove(sectionKey(worldIndex, chunk.getX(), sectionY, chunk.getZ()));
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.listeners;
+
+import com.epicnicity322.epicpluginlib.core.logger.ConsoleLogger;
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
+import com.epicnicity322.yamlhandler.Configuration;
+import com.epicnicity322.yamlhandler.ConfigurationSection;
+import org.bukkit.Material;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Criteria of entity and item names used in configurations, like "ZOMBIE", "any", or "startsWith[diamond_,iron_]".
+ * <p>
+ * Criteria are compiled to the set of enum constants they match, so checking a criterion is a set lookup.
+ */
+final class EnumCriteria {
+    private static final @NotNull Pattern comma = Pattern.compile(",");
+
+    private EnumCriteria() {
+    }
+
+    /**
+     * Compiles a criterion to all the constants of an enum it matches.
+     *
+     * @param criterion The criterion to compile.
+     * @param type      The class of the enum.
+     * @param <E>       The enum type.
+     * @return The constants matching the criterion, or null if the criterion has an unknown filter.
+     */
+    static <E extends Enum<E>> @Nullable EnumSet<E> compile(@NotNull String criterion, @NotNull Class<E> type) {
+        String lowerCase = criterion.toLowerCase();
+        int bracketIndex = lowerCase.indexOf('[');
+
+        if (!lowerCase.startsWith("any") && bracketIndex != -1) {
+            switch (lowerCase.substring(0, bracketIndex)) {
+                case "contains", "endswith", "equals", "startswith" -> {
+                }
+                default -> {
+                    return null;
+                }
+            }
+        }
+
+        EnumSet<E> matches = EnumSet.noneOf(type);
+
+        for (E constant : type.getEnumConstants()) {
+            if (matches(criterion, constant.name())) matches.add(constant);
+        }
+
+        return matches;
+    }
+
+    /**
+     * Compiles the criteria of an items configuration, like items clicked.yml, to the sounds of each material. The
+     * sounds of a material are in the order of the configuration, so "Prevent Other Sounds.Other Criteria" stops at the
+     * same criteria it would if the criteria were checked one by one.
+     *
+     * @param criteria   The configuration with the criteria as keys.
+     * @param configName The name of the configuration, to warn about invalid criteria.
+     * @return The sounds of the criteria matching each material.
+     */
+    static @NotNull EnumMap<Material, PlayableRichSound[]> compileItemSounds(@NotNull Configuration criteria, @NotNull String configName) {
+        var soundsByMaterial = new EnumMap<Material, ArrayList<PlayableRichSound>>(Material.class);
+
+        for (Map.Entry<String, Object> node : criteria.getNodes().entrySet()) {
+            if (!(node.getValue() instanceof ConfigurationSection section) || !section.contains("Sounds")) continue;
+
+            PlayableRichSound sound = PMSListener.getRichSound(section);
+            if (sound == null) continue;
+
+            EnumSet<Material> materials = compile(node.getKey(), Material.class);
+
+            if (materials == null) {
+                PlayMoreSounds.getConsoleLogger().log("The criterion \"" + node.getKey() + "\" in " + configName + " has an unknown filter, so it was ignored.", ConsoleLogger.Level.WARN);
+                continue;
+            }
+            if (materials.isEmpty()) {
+                PlayMoreSounds.getConsoleLogger().log("The criterion \"" + node.getKey() + "\" in " + configName + " does not match any item, so it was ignored.", ConsoleLogger.Level.WARN);
+                continue;
+            }
+
+            for (Material material : materials)
+                soundsByMaterial.computeIfAbsent(material, k -> new ArrayList<>(1)).add(sound);
+        }
+
+        var compiled = new EnumMap<Material, PlayableRichSound[]>(Material.class);
+        soundsByMaterial.forEach((material, sounds) -> compiled.put(material, sounds.toArray(new PlayableRichSound[0])));
+        return compiled;
+    }
+
+    private static boolean matches(String criterion, String value) {
+        criterion = criterion.toLowerCase();
+        value = value.toLowerCase();
+
+        if (criterion.equals(value) || criterion.startsWith("any"))
+            return true;
+
+        int bracketIndex = criterion.indexOf("[");
+
+        // If criterion doesn't has any filters.
+        if (bracketIndex == -1) {
+            criterion = "equals[" + criterion + "]";
+            bracketIndex = 6;
+        }
+
+        int lastBracketIndex = criterion.lastIndexOf("]");
+
+        if (lastBracketIndex == -1)
+            lastBracketIndex = criterion.length();
+        else if (lastBracketIndex < bracketIndex)
+            return false;
+
+        String[] strings = comma.split(criterion.substring(bracketIndex + 1, lastBracketIndex));
+
+        switch (criterion.substring(0, bracketIndex)) {
+            case "contains" -> {
+                for (var string : strings)
+                    if (value.contains(string))
+                        return true;
+            }
+            case "endswith" -> {
+                for (var string : strings)
+                    if (value.endsWith(string))
+                        return true;
+            }
+            case "equals" -> {
+                for (var string : strings)
+                    if (value.equals(string))
+                        return true;
+            }
+            case "startswith" -> {
+                for (var string : strings)
+                    if (value.startsWith(string))
+                        return true;
+            }
+        }
+
+        return false;
+    }
+}
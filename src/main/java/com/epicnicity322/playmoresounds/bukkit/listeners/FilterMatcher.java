@@ -0,0 +1,312 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.listeners;
+
+import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
+import com.epicnicity322.playmoresounds.core.util.LongLongHashMap;
+import com.epicnicity322.yamlhandler.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * The criteria of a filters configuration, like chat sounds.yml and commands.yml, compiled so all criteria matching a
+ * message are found without checking every criterion.
+ * <p>
+ * "Contains" and "Contains SubString" criteria are found in one pass over the lower cased message by an Aho-Corasick
+ * automaton, and word boundaries of "Contains" are checked on the offsets of the matches. "Starts With" and
+ * "Ends With" criteria are found by walking a trie from the start or from the end of the message, and the "Equals"
+ * criteria are looked up in hash maps.
+ * <p>
+ * Matchers are immutable, so they can be used by async events.
+ */
+final class FilterMatcher {
+    private static final int @NotNull [] NO_CRITERIA = new int[0];
+    static final @NotNull FilterMatcher EMPTY = new FilterMatcher(Collections.emptyMap());
+    /**
+     * The sounds of the criteria, in the order of the configuration.
+     */
+    private final @NotNull ArrayList<PlayableRichSound> criteria = new ArrayList<>();
+    private final @NotNull HashMap<String, int[]> equalsExactly = new HashMap<>();
+    private final @NotNull HashMap<String, int[]> equalsIgnoreCase = new HashMap<>();
+    private final @NotNull Trie startsWith = new Trie();
+    private final @NotNull Trie endsWith = new Trie();
+    private final @NotNull Trie contains = new Trie();
+    /**
+     * Whether the criterion of a "Contains" match should be surrounded by word boundaries.
+     */
+    private final @NotNull BitSet wordBounded = new BitSet();
+
+    /**
+     * Compiles the enabled criteria of a filters configuration.
+     *
+     * @param filters The filters of the configuration, the key is the name of the filter and the value the section with
+     *                the criteria.
+     */
+    FilterMatcher(@NotNull Map<String, Object> filters) {
+        for (Map.Entry<String, Object> filter : filters.entrySet()) {
+            if (!(filter.getValue() instanceof ConfigurationSection filterSection)) continue;
+
+            for (Map.Entry<String, Object> criterion : filterSection.getNodes().entrySet()) {
+                if (!(criterion.getValue() instanceof ConfigurationSection criterionSection)) continue;
+
+                PlayableRichSound sound = PMSListener.getRichSound(criterionSection);
+                if (sound == null) continue;
+
+                String name = criterion.getKey();
+                int id = criteria.size();
+
+                switch (filter.getKey()) {
+                    case "Starts With" -> startsWith.add(name, false, id);
+                    case "Ends With" -> endsWith.add(name, true, id);
+                    case "Contains SubString" -> contains.add(name.toLowerCase(), false, id);
+                    case "Contains" -> {
+                        contains.add(name.toLowerCase(), false, id);
+                        wordBounded.set(id);
+                    }
+                    case "Equals Ignore Case" -> add(equalsIgnoreCase, name.toLowerCase(), id);
+                    case "Equals Exactly" -> add(equalsExactly, name, id);
+                    default -> {
+                        continue;
+                    }
+                }
+
+                criteria.add(sound);
+            }
+        }
+
+        contains.buildFailureLinks();
+        criteria.trimToSize();
+    }
+
+    private static void add(@NotNull HashMap<String, int[]> map, @NotNull String key, int id) {
+        int[] ids = map.getOrDefault(key, NO_CRITERIA);
+        ids = Arrays.copyOf(ids, ids.length + 1);
+        ids[ids.length - 1] = id;
+        map.put(key, ids);
+    }
+
+    /**
+     * Whether there is a word boundary before the index, the same as regex's {@code \b}.
+     */
+    private static boolean isBoundary(@NotNull String string, int index) {
+        return isWord(string, index - 1) != isWord(string, index);
+    }
+
+    private static boolean isWord(@NotNull String string, int index) {
+        if (index < 0 || index >= string.length()) return false;
+
+        char c = string.charAt(index);
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * @return Whether there are no criteria in this matcher.
+     */
+    boolean isEmpty() {
+        return criteria.isEmpty();
+    }
+
+    /**
+     * Finds the criteria matching a message.
+     *
+     * @param message The message to match.
+     * @return The ids of the matching criteria, use {@link #getCriterion(int)} to get their sounds. Ids are in the order
+     * of the configuration.
+     */
+    @NotNull BitSet match(@NotNull String message) {
+        var matches = new BitSet(criteria.size());
+        if (criteria.isEmpty()) return matches;
+
+        startsWith.walk(message, false, matches);
+        endsWith.walk(message, true, matches);
+        for (int id : equalsExactly.getOrDefault(message, NO_CRITERIA)) matches.set(id);
+
+        if (contains.size() > 1 || contains.terminals(0) != null || !equalsIgnoreCase.isEmpty()) {
+            String lowerCase = message.toLowerCase();
+
+            for (int id : equalsIgnoreCase.getOrDefault(lowerCase, NO_CRITERIA)) matches.set(id);
+            if (contains.size() > 1 || contains.terminals(0) != null) search(lowerCase, matches);
+        }
+
+        return matches;
+    }
+
+    private void search(@NotNull String message, @NotNull BitSet matches) {
+        int[] empty = contains.terminals(0);
+
+        if (empty != null) {
+            boolean hasBoundary = false;
+            for (int i = 0; i <= message.length() && !hasBoundary; ++i) hasBoundary = isBoundary(message, i);
+
+            for (int id : empty) if (!wordBounded.get(id) || hasBoundary) matches.set(id);
+        }
+
+        int node = 0;
+
+        for (int i = 0; i < message.length(); ++i) {
+            char c = message.charAt(i);
+            int next;
+
+            while ((next = contains.child(node, c)) == -1 && node != 0) node = contains.failure(node);
+            node = next == -1 ? 0 : next;
+
+            for (int output = contains.terminals(node) != null ? node : contains.output(node); output > 0; output = contains.output(output)) {
+                int end = i + 1;
+                int start = end - contains.depth(output);
+
+                for (int id : contains.terminals(output)) {
+                    if (matches.get(id)) continue;
+                    if (!wordBounded.get(id) || (isBoundary(message, start) && isBoundary(message, end)))
+                        matches.set(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param id The id of the criterion.
+     * @return The sound of the criterion.
+     */
+    @NotNull PlayableRichSound getCriterion(int id) {
+        return criteria.get(id);
+    }
+
+    /**
+     * A trie of characters, which is also an Aho-Corasick automaton once {@link #buildFailureLinks()} is called.
+     */
+    private static final class Trie {
+        /**
+         * The child nodes, keyed by the parent node and the character.
+         */
+        private final @NotNull LongLongHashMap children = new LongLongHashMap();
+        private final @NotNull ArrayList<int[]> terminals = new ArrayList<>();
+        private final @NotNull ArrayList<Integer> parents = new ArrayList<>();
+        private final @NotNull StringBuilder characters = new StringBuilder();
+        private int @NotNull [] depths = new int[1];
+        private int @NotNull [] failures = NO_CRITERIA;
+        private int @NotNull [] outputs = NO_CRITERIA;
+
+        private Trie() {
+            // Root node.
+            terminals.add(null);
+            parents.add(-1);
+            characters.append('\0');
+        }
+
+        private static long key(int node, char c) {
+            return ((long) node << 16) | c;
+        }
+
+        private void add(@NotNull String string, boolean reversed, int id) {
+            int node = 0;
+
+            for (int i = 0; i < string.length(); ++i) {
+                char c = string.charAt(reversed ? string.length() - 1 - i : i);
+                int child = child(node, c);
+
+                if (child == -1) {
+                    child = terminals.size();
+                    children.put(key(node, c), child);
+                    terminals.add(null);
+                    parents.add(node);
+                    characters.append(c);
+                    if (child >= depths.length) depths = Arrays.copyOf(depths, depths.length << 1);
+                    depths[child] = depths[node] + 1;
+                }
+
+                node = child;
+            }
+
+            int[] ids = terminals.get(node);
+            if (ids == null) ids = NO_CRITERIA;
+            ids = Arrays.copyOf(ids, ids.length + 1);
+            ids[ids.length - 1] = id;
+            terminals.set(node, ids);
+        }
+
+        private int child(int node, char c) {
+            return (int) children.get(key(node, c), -1);
+        }
+
+        private int size() {
+            return terminals.size();
+        }
+
+        private int depth(int node) {
+            return depths[node];
+        }
+
+        private int[] terminals(int node) {
+            return terminals.get(node);
+        }
+
+        private int failure(int node) {
+            return failures[node];
+        }
+
+        /**
+         * @return The closest node in the failure chain of this node where criteria end, or 0 if none.
+         */
+        private int output(int node) {
+            return outputs[node];
+        }
+
+        /**
+         * Walks the trie through the characters of the string, setting the criteria ending at every node visited.
+         */
+        private void walk(@NotNull String string, boolean reversed, @NotNull BitSet matches) {
+            int node = 0;
+            int[] ids = terminals.get(0);
+
+            for (int i = 0; ; ++i) {
+                if (ids != null) for (int id : ids) matches.set(id);
+                if (i == string.length()) return;
+
+                node = child(node, string.charAt(reversed ? string.length() - 1 - i : i));
+                if (node == -1) return;
+                ids = terminals.get(node);
+            }
+        }
+
+        private void buildFailureLinks() {
+            int size = terminals.size();
+            failures = new int[size];
+            outputs = new int[size];
+
+            // Nodes are processed by depth, so the failure link of the parent is always known.
+            Integer[] byDepth = new Integer[size];
+            for (int i = 0; i < size; ++i) byDepth[i] = i;
+            Arrays.sort(byDepth, Comparator.comparingInt(node -> depths[node]));
+
+            for (int node : byDepth) {
+                int parent = parents.get(node);
+                if (parent <= 0) continue;
+
+                char c = characters.charAt(node);
+                int failure = failures[parent];
+                int next;
+
+                while ((next = child(failure, c)) == -1 && failure != 0) failure = failures[failure];
+                failures[node] = next == -1 ? 0 : next;
+                outputs[node] = terminals.get(failures[node]) != null && failures[node] != 0 ? failures[node] : outputs[failures[node]];
+            }
+        }
+    }
+}
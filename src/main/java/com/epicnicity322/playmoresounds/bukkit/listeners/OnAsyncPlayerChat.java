@@ -19,9 +19,9 @@
 package com.epicnicity322.playmoresounds.bukkit.listeners;
 
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.bukkit.sound.AsyncSoundQueue;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
-import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -29,30 +29,15 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.regex.Pattern;
+import java.util.BitSet;
 
 public final class OnAsyncPlayerChat extends PMSListener {
-    private final @NotNull HashMap<String, HashSet<PlayableRichSound>> filtersAndCriteria = new HashMap<>();
+    private volatile @NotNull FilterMatcher filters = FilterMatcher.EMPTY;
 
     public OnAsyncPlayerChat(@NotNull PlayMoreSounds plugin) {
         super(plugin);
     }
 
-    static boolean matchesFilter(String filter, String criteria, String message) {
-        return switch (filter) {
-            case "Starts With" -> message.startsWith(criteria);
-            case "Ends With" -> message.endsWith(criteria);
-            case "Contains SubString" -> message.toLowerCase().contains(criteria.toLowerCase());
-            case "Contains" -> message.toLowerCase().matches(".*\\b" + Pattern.quote(criteria.toLowerCase()) + "\\b.*");
-            case "Equals Ignore Case" -> message.equalsIgnoreCase(criteria);
-            case "Equals Exactly" -> message.equals(criteria);
-            default -> false;
-        };
-    }
-
     @Override
     public @NotNull String getName() {
         return "Player Chat";
@@ -60,31 +45,12 @@ public final class OnAsyncPlayerChat extends PMSListener {
 
     @Override
     public void load() {
-        filtersAndCriteria.clear();
-
         var sounds = Configurations.SOUNDS.getConfigurationHolder().getConfiguration();
-        var chatTriggers = Configurations.CHAT_SOUNDS.getConfigurationHolder().getConfiguration();
-
-        for (Map.Entry<String, Object> filter : chatTriggers.getNodes().entrySet()) {
-            if (filter.getValue() instanceof ConfigurationSection filterSection) {
-                HashSet<PlayableRichSound> criteria = new HashSet<>();
-
-                for (Map.Entry<String, Object> criterion : filterSection.getNodes().entrySet()) {
-                    if (criterion.getValue() instanceof ConfigurationSection criterionSection) {
-
-                        if (criterionSection.getBoolean("Enabled").orElse(false)) {
-                            criteria.add(getRichSound(criterionSection));
-                        }
-                    }
-                }
-
-                if (!criteria.isEmpty()) filtersAndCriteria.put(filter.getKey(), criteria);
-            }
-        }
 
+        filters = new FilterMatcher(Configurations.CHAT_SOUNDS.getConfigurationHolder().getConfiguration().getNodes());
         setRichSound(getRichSound(sounds.getConfigurationSection(getName())));
 
-        if (getRichSound() != null || !filtersAndCriteria.isEmpty()) {
+        if (getRichSound() != null || !filters.isEmpty()) {
             if (!isLoaded()) {
                 Bukkit.getPluginManager().registerEvents(this, plugin);
                 setLoaded(true);
@@ -104,26 +70,23 @@ public final class OnAsyncPlayerChat extends PMSListener {
         var player = event.getPlayer();
         boolean defaultSound = getRichSound() != null;
 
-        filterLoop:
-        for (Map.Entry<String, HashSet<PlayableRichSound>> filter : filtersAndCriteria.entrySet()) {
-            for (var criteria : filter.getValue()) {
-                ConfigurationSection criteriaSection = criteria.getSection();
+        FilterMatcher filters = this.filters;
+        BitSet matches = filters.match(message);
 
-                if (!event.isCancelled() || !criteria.isCancellable()) {
-                    if (matchesFilter(filter.getKey(), criteriaSection.getName(), message)) {
-                        Bukkit.getScheduler().runTask(plugin, () -> criteria.play(player));
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            PlayableRichSound criterion = filters.getCriterion(id);
+            if (event.isCancelled() && criterion.isCancellable()) continue;
 
-                        if (criteriaSection.getBoolean("Prevent Other Sounds.Default Sound").orElse(false))
-                            defaultSound = false;
+            AsyncSoundQueue.play(criterion, player);
 
-                        if (criteriaSection.getBoolean("Prevent Other Sounds.Other Filters").orElse(false))
-                            break filterLoop;
-                    }
-                }
-            }
+            if (criterion.getProperties().preventOtherDefault())
+                defaultSound = false;
+
+            if (criterion.getProperties().preventOtherFilters())
+                break;
         }
 
         if (defaultSound && (!event.isCancelled() || !getRichSound().isCancellable()))
-            Bukkit.getScheduler().runTask(plugin, () -> getRichSound().play(player));
+            AsyncSoundQueue.play(getRichSound(), player);
     }
 }
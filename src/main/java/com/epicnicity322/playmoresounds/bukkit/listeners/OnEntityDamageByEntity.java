@@ -18,14 +18,14 @@
 
 package com.epicnicity322.playmoresounds.bukkit.listeners;
 
+import com.epicnicity322.epicpluginlib.core.logger.ConsoleLogger;
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
 import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
-import org.bukkit.NamespacedKey;
-import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -33,94 +33,39 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.inventory.EntityEquipment;
-import org.bukkit.persistence.PersistentDataType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Map;
-import java.util.regex.Pattern;
 
 public final class OnEntityDamageByEntity extends PMSListener {
-    private static final @NotNull Pattern comma = Pattern.compile(",");
-    private final @NotNull NamespacedKey killerUUID;
-    private @Nullable HashSet<PlayableRichSound> conditions;
+    private @NotNull HitCondition @Nullable [] conditions;
 
     public OnEntityDamageByEntity(@NotNull PlayMoreSounds plugin) {
         super(plugin);
-
-        this.killerUUID = new NamespacedKey(plugin, "killer_uuid");
     }
 
-    private static boolean matchesCondition(String condition, Entity damager, Entity victim, Material itemInDamagerHand) {
-        try {
-            // Getting the criterion of the condition and removing spaces, so everything works as intended on matchesCriterion.
-            int hitIndex = condition.indexOf("hit");
-            int holdingIndex = condition.indexOf("holding");
-            var damagerCriterion = condition.substring(0, hitIndex).replace(" ", "");
-            var victimCriterion = condition.substring(hitIndex + 4, holdingIndex).replace(" ", "");
-            var itemCriterion = condition.substring(holdingIndex + 7).replace(" ", "");
-
-            return matchesCriterion(damagerCriterion, damager.getType().name()) &&
-                    matchesCriterion(victimCriterion, victim.getType().name()) &&
-                    matchesCriterion(itemCriterion, itemInDamagerHand.name());
-        } catch (Exception ignored) {
-            // If the user got the syntax wrong it will just return false.
-        }
-
-        return false;
-    }
-
-    static boolean matchesCriterion(String criterion, String value) {
-        criterion = criterion.toLowerCase();
-        value = value.toLowerCase();
-
-        if (criterion.equals(value) || criterion.startsWith("any"))
-            return true;
-
-        try {
-            int bracketIndex = criterion.indexOf("[");
-
-            // If criterion doesn't has any filters.
-            if (bracketIndex == -1) {
-                criterion = "equals[" + criterion + "]";
-                bracketIndex = 6;
-            }
-
-            int lastBracketIndex = criterion.lastIndexOf("]");
-
-            if (lastBracketIndex == -1)
-                lastBracketIndex = criterion.length();
-
-            String[] strings = comma.split(criterion.substring(bracketIndex + 1, lastBracketIndex));
-
-            switch (criterion.substring(0, bracketIndex)) {
-                case "contains" -> {
-                    for (var string : strings)
-                        if (value.contains(string))
-                            return true;
-                }
-                case "endswith" -> {
-                    for (var string : strings)
-                        if (value.endsWith(string))
-                            return true;
-                }
-                case "equals" -> {
-                    for (var string : strings)
-                        if (value.equals(string))
-                            return true;
-                }
-                case "startswith" -> {
-                    for (var string : strings)
-                        if (value.startsWith(string))
-                            return true;
-                }
-            }
-        } catch (Exception ignored) {
-            // If the user got the syntax wrong it will just return false.
-        }
-
-        return false;
+    /**
+     * Compiles a hit sounds.yml condition, in the pattern "damager hit victim holding item".
+     *
+     * @param condition The name of the condition.
+     * @param sound     The sound of the condition.
+     * @return The compiled condition, or null if the syntax of the condition is invalid.
+     */
+    private static @Nullable HitCondition compileCondition(@NotNull String condition, @NotNull PlayableRichSound sound) {
+        int hitIndex = condition.indexOf("hit");
+        int holdingIndex = condition.indexOf("holding");
+        if (hitIndex == -1 || holdingIndex < hitIndex + 4) return null;
+
+        // Getting the criterion of the condition and removing spaces, so everything works as intended on EnumCriteria.
+        EnumSet<EntityType> damagers = EnumCriteria.compile(condition.substring(0, hitIndex).replace(" ", ""), EntityType.class);
+        EnumSet<EntityType> victims = EnumCriteria.compile(condition.substring(hitIndex + 4, holdingIndex).replace(" ", ""), EntityType.class);
+        EnumSet<Material> items = EnumCriteria.compile(condition.substring(holdingIndex + 7).replace(" ", ""), Material.class);
+        if (damagers == null || victims == null || items == null) return null;
+
+        return new HitCondition(sound, damagers, victims, items);
     }
 
     @Override
@@ -133,16 +78,25 @@ public final class OnEntityDamageByEntity extends PMSListener {
         var sounds = Configurations.SOUNDS.getConfigurationHolder().getConfiguration();
         var hitSounds = Configurations.HIT_SOUNDS.getConfigurationHolder().getConfiguration();
 
-        // Adding specific hit sound conditions to map.
-        conditions = null;
+        // Compiling specific hit sound conditions.
+        var conditions = new ArrayList<HitCondition>();
         for (Map.Entry<String, Object> condition : hitSounds.getNodes().entrySet()) {
             if (condition.getValue() instanceof ConfigurationSection conditionSection) {
-                if (conditionSection.getBoolean("Enabled").orElse(false)) {
-                    if (conditions == null) conditions = new HashSet<>();
-                    conditions.add(getRichSound(conditionSection));
+                PlayableRichSound sound = getRichSound(conditionSection);
+                if (sound == null) continue;
+
+                HitCondition hitCondition = compileCondition(condition.getKey(), sound);
+
+                if (hitCondition == null) {
+                    PlayMoreSounds.getConsoleLogger().log("The condition \"" + condition.getKey() + "\" in hit sounds.yml is not in the pattern \"<damager> hit <victim> holding <item>\" or has an unknown filter, so it was ignored.", ConsoleLogger.Level.WARN);
+                } else if (hitCondition.damagers.isEmpty() || hitCondition.victims.isEmpty() || hitCondition.items.isEmpty()) {
+                    PlayMoreSounds.getConsoleLogger().log("The condition \"" + condition.getKey() + "\" in hit sounds.yml does not match any entity or item, so it was ignored.", ConsoleLogger.Level.WARN);
+                } else {
+                    conditions.add(hitCondition);
                 }
             }
         }
+        this.conditions = conditions.isEmpty() ? null : conditions.toArray(new HitCondition[0]);
 
         setRichSound(getRichSound(sounds.getConfigurationSection(getName())));
 
@@ -188,30 +142,35 @@ public final class OnEntityDamageByEntity extends PMSListener {
             }
         }
 
-        // The players last killer uuid is set here, so it can be get in PlayerDeathEvent and be used to play kill and killed sounds.
-        // Then, after the sound is played, the killer uuid key is removed from player data.
+        // The players last killer is kept here, so it can be get in PlayerDeathEvent and be used to play kill and killed sounds.
+        // Then, once the player dies, respawns or quits, the killer is forgotten.
         if (damagerPlayer != null && victim instanceof Player victimPlayer && victimPlayer.getHealth() - event.getFinalDamage() <= 0) {
-            victimPlayer.getPersistentDataContainer().set(killerUUID, PersistentDataType.STRING, damagerPlayer.getUniqueId().toString());
+            OnPlayerDeath.setKiller(victimPlayer, damagerPlayer);
         }
 
         // If the default sound should play.
         boolean defaultSound = getRichSound() != null;
 
+        HitCondition[] conditions = this.conditions;
+
         if (conditions != null) {
+            EntityType damagerType = damager.getType();
+            EntityType victimType = victim.getType();
+
             // Checking if any condition on hit sounds.yml matches this scenario.
-            for (PlayableRichSound condition : conditions) {
-                if (!event.isCancelled() || !condition.isCancellable()) {
-                    ConfigurationSection conditionSection = condition.getSection();
+            for (HitCondition condition : conditions) {
+                PlayableRichSound sound = condition.sound;
 
-                    if (matchesCondition(conditionSection.getName(), damager, victim, damagerHand)) {
-                        condition.play(damagerPlayer, damagerLocation);
+                if (!event.isCancelled() || !sound.isCancellable()) {
+                    if (condition.damagers.contains(damagerType) && condition.victims.contains(victimType) && condition.items.contains(damagerHand)) {
+                        sound.play(damagerPlayer, damagerLocation);
 
                         // Checking if default sound should play.
-                        if (conditionSection.getBoolean("Prevent Other Sounds.Default Sound").orElse(false))
+                        if (sound.getProperties().preventOtherDefault())
                             defaultSound = false;
 
                         // Checking if this loop should continue checking for other conditions.
-                        if (conditionSection.getBoolean("Prevent Other Sounds.Other Conditions").orElse(false))
+                        if (sound.getProperties().preventOtherConditions())
                             break;
                     }
                 }
@@ -223,4 +182,8 @@ public final class OnEntityDamageByEntity extends PMSListener {
             getRichSound().play(damagerPlayer, damagerLocation);
         }
     }
+
+    private record HitCondition(@NotNull PlayableRichSound sound, @NotNull EnumSet<EntityType> damagers,
+                                @NotNull EnumSet<EntityType> victims, @NotNull EnumSet<Material> items) {
+    }
 }
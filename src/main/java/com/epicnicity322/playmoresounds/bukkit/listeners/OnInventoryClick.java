@@ -21,7 +21,6 @@ package com.epicnicity322.playmoresounds.bukkit.listeners;
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
-import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -31,11 +30,10 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.EnumMap;
 
 public final class OnInventoryClick extends PMSListener {
-    private final @NotNull HashMap<String, PlayableRichSound> criteriaSounds = new HashMap<>();
+    private @NotNull EnumMap<Material, PlayableRichSound[]> criteriaSounds = new EnumMap<>(Material.class);
 
     public OnInventoryClick(@NotNull PlayMoreSounds plugin) {
         super(plugin);
@@ -48,19 +46,9 @@ public final class OnInventoryClick extends PMSListener {
 
     @Override
     public void load() {
-        criteriaSounds.clear();
-
         var sounds = Configurations.SOUNDS.getConfigurationHolder().getConfiguration();
-        var itemsClicked = Configurations.ITEMS_CLICKED.getConfigurationHolder().getConfiguration();
-
-        for (Map.Entry<String, Object> node : itemsClicked.getNodes().entrySet()) {
-            if (node.getValue() instanceof ConfigurationSection section) {
-                if (section.getBoolean("Enabled").orElse(false) && section.contains("Sounds")) {
-                    criteriaSounds.put(node.getKey(), getRichSound(section));
-                }
-            }
-        }
 
+        criteriaSounds = EnumCriteria.compileItemSounds(Configurations.ITEMS_CLICKED.getConfigurationHolder().getConfiguration(), "items clicked.yml");
         setRichSound(getRichSound(sounds.getConfigurationSection(getName())));
 
         if (getRichSound() != null || !criteriaSounds.isEmpty()) {
@@ -88,18 +76,16 @@ public final class OnInventoryClick extends PMSListener {
 
         var player = (Player) event.getWhoClicked();
         var defaultSound = getRichSound();
-        String material = item.getType().name();
-
-        for (Map.Entry<String, PlayableRichSound> criterion : criteriaSounds.entrySet()) {
-            if (OnEntityDamageByEntity.matchesCriterion(criterion.getKey(), material)) {
-                var criterionSound = criterion.getValue();
+        PlayableRichSound[] criteria = criteriaSounds.get(item.getType());
 
+        if (criteria != null) {
+            for (PlayableRichSound criterionSound : criteria) {
                 if (!event.isCancelled() || !criterionSound.isCancellable()) {
                     criterionSound.play(player);
 
-                    if (criterionSound.getSection().getBoolean("Prevent Other Sounds.Default Sound").orElse(false))
+                    if (criterionSound.getProperties().preventOtherDefault())
                         defaultSound = null;
-                    if (criterionSound.getSection().getBoolean("Prevent Other Sounds.Other Criteria").orElse(false))
+                    if (criterionSound.getProperties().preventOtherCriteria())
                         break;
                 }
             }
@@ -21,19 +21,18 @@ package com.epicnicity322.playmoresounds.bukkit.listeners;
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
-import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.player.PlayerAnimationEvent;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.EnumMap;
 
 public final class OnPlayerAnimation extends PMSListener {
-    private final @NotNull HashMap<String, PlayableRichSound> criteriaSounds = new HashMap<>();
+    private @NotNull EnumMap<Material, PlayableRichSound[]> criteriaSounds = new EnumMap<>(Material.class);
 
     public OnPlayerAnimation(@NotNull PlayMoreSounds plugin) {
         super(plugin);
@@ -46,19 +45,9 @@ public final class OnPlayerAnimation extends PMSListener {
 
     @Override
     public void load() {
-        criteriaSounds.clear();
-
         var sounds = Configurations.SOUNDS.getConfigurationHolder().getConfiguration();
-        var itemsSwung = Configurations.ITEMS_SWUNG.getConfigurationHolder().getConfiguration();
-
-        for (Map.Entry<String, Object> node : itemsSwung.getNodes().entrySet()) {
-            if (node.getValue() instanceof ConfigurationSection section) {
-                if (section.getBoolean("Enabled").orElse(false) && section.contains("Sounds")) {
-                    criteriaSounds.put(node.getKey(), getRichSound(section));
-                }
-            }
-        }
 
+        criteriaSounds = EnumCriteria.compileItemSounds(Configurations.ITEMS_SWUNG.getConfigurationHolder().getConfiguration(), "items swung.yml");
         setRichSound(getRichSound(sounds.getConfigurationSection(getName())));
 
         if (getRichSound() != null || !criteriaSounds.isEmpty()) {
@@ -78,18 +67,16 @@ public final class OnPlayerAnimation extends PMSListener {
     public void onPlayerAnimation(PlayerAnimationEvent event) {
         var player = event.getPlayer();
         var sound = getRichSound();
-        String material = player.getInventory().getItemInMainHand().getType().name();
-
-        for (Map.Entry<String, PlayableRichSound> criterion : criteriaSounds.entrySet()) {
-            if (OnEntityDamageByEntity.matchesCriterion(criterion.getKey(), material)) {
-                var criterionSound = criterion.getValue();
+        PlayableRichSound[] criteria = criteriaSounds.get(player.getInventory().getItemInMainHand().getType());
 
+        if (criteria != null) {
+            for (PlayableRichSound criterionSound : criteria) {
                 if (!event.isCancelled() || !criterionSound.isCancellable()) {
                     criterionSound.play(player);
 
-                    if (criterionSound.getSection().getBoolean("Prevent Other Sounds.Default Sound").orElse(false))
+                    if (criterionSound.getProperties().preventOtherDefault())
                         sound = null;
-                    if (criterionSound.getSection().getBoolean("Prevent Other Sounds.Other Criteria").orElse(false))
+                    if (criterionSound.getProperties().preventOtherCriteria())
                         break;
                 }
             }
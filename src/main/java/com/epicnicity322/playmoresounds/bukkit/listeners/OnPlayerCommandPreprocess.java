@@ -21,7 +21,6 @@ package com.epicnicity322.playmoresounds.bukkit.listeners;
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
-import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
@@ -29,12 +28,10 @@ import org.bukkit.event.HandlerList;
 import org.bukkit.event.player.PlayerCommandPreprocessEvent;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.BitSet;
 
 public final class OnPlayerCommandPreprocess extends PMSListener {
-    private final @NotNull HashMap<String, HashSet<PlayableRichSound>> filtersAndCriteria = new HashMap<>();
+    private volatile @NotNull FilterMatcher filters = FilterMatcher.EMPTY;
 
     public OnPlayerCommandPreprocess(@NotNull PlayMoreSounds plugin) {
         super(plugin);
@@ -47,31 +44,12 @@ public final class OnPlayerCommandPreprocess extends PMSListener {
 
     @Override
     public void load() {
-        filtersAndCriteria.clear();
-
         var sounds = Configurations.SOUNDS.getConfigurationHolder().getConfiguration();
-        var commandTriggers = Configurations.COMMANDS.getConfigurationHolder().getConfiguration();
-
-        for (Map.Entry<String, Object> filter : commandTriggers.getNodes().entrySet()) {
-            if (filter.getValue() instanceof ConfigurationSection filterSection) {
-                HashSet<PlayableRichSound> criteria = new HashSet<>();
-
-                for (Map.Entry<String, Object> criterion : filterSection.getNodes().entrySet()) {
-                    if (criterion.getValue() instanceof ConfigurationSection criterionSection) {
-
-                        if (criterionSection.getBoolean("Enabled").orElse(false)) {
-                            criteria.add(getRichSound(criterionSection));
-                        }
-                    }
-                }
-
-                if (!criteria.isEmpty()) filtersAndCriteria.put(filter.getKey(), criteria);
-            }
-        }
 
+        filters = new FilterMatcher(Configurations.COMMANDS.getConfigurationHolder().getConfiguration().getNodes());
         setRichSound(getRichSound(sounds.getConfigurationSection(getName())));
 
-        if (getRichSound() != null || !filtersAndCriteria.isEmpty()) {
+        if (getRichSound() != null || !filters.isEmpty()) {
             if (!isLoaded()) {
                 Bukkit.getPluginManager().registerEvents(this, plugin);
                 setLoaded(true);
@@ -90,23 +68,20 @@ public final class OnPlayerCommandPreprocess extends PMSListener {
         var player = event.getPlayer();
         boolean defaultSound = getRichSound() != null;
 
-        filterLoop:
-        for (Map.Entry<String, HashSet<PlayableRichSound>> filter : filtersAndCriteria.entrySet()) {
-            for (var criteria : filter.getValue()) {
-                ConfigurationSection criteriaSection = criteria.getSection();
+        FilterMatcher filters = this.filters;
+        BitSet matches = filters.match(message);
 
-                if (!event.isCancelled() || !criteria.isCancellable()) {
-                    if (OnAsyncPlayerChat.matchesFilter(filter.getKey(), criteriaSection.getName(), message)) {
-                        criteria.play(player);
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            PlayableRichSound criterion = filters.getCriterion(id);
+            if (event.isCancelled() && criterion.isCancellable()) continue;
 
-                        if (criteriaSection.getBoolean("Prevent Other Sounds.Default Sound").orElse(false))
-                            defaultSound = false;
+            criterion.play(player);
 
-                        if (criteriaSection.getBoolean("Prevent Other Sounds.Other Filters").orElse(false))
-                            break filterLoop;
-                    }
-                }
-            }
+            if (criterion.getProperties().preventOtherDefault())
+                defaultSound = false;
+
+            if (criterion.getProperties().preventOtherFilters())
+                break;
         }
 
         if (defaultSound && (!event.isCancelled() || !getRichSound().isCancellable()))
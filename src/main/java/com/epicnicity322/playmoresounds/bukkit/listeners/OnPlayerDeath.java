@@ -21,34 +21,76 @@ package com.epicnicity322.playmoresounds.bukkit.listeners;
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
+import com.epicnicity322.playmoresounds.core.util.LongLongHashMap;
 import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
-import org.bukkit.NamespacedKey;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
 import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityResurrectEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
-import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.event.player.PlayerRespawnEvent;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
-import java.util.UUID;
 
 public final class OnPlayerDeath extends PMSListener {
-    private final @NotNull NamespacedKey lastDamageKey;
-    private final @NotNull NamespacedKey killerUUIDKey;
-    private @Nullable HashMap<String, PlayableRichSound> specificDeaths;
+    private static final long NO_DEATH = 0;
+    private static final long CAUSE_MASK = 0xFFFF;
+    private static final long HAS_KILLER = 1L << 16;
+    private static final EntityDamageEvent.DamageCause @NotNull [] causes = EntityDamageEvent.DamageCause.values();
+    /**
+     * The lethal damage cause and killer of players about to die, by entity id. The cause ordinal + 1 is in the lowest
+     * 16 bits, and the entity id of the killer in the highest 32 bits if {@link #HAS_KILLER} is set.
+     * <p>
+     * Entries only live until the player dies, respawns or quits, so nothing is written to the player's data.
+     */
+    private static final @NotNull LongLongHashMap lethalDamages = new LongLongHashMap();
+
+    static {
+        PlayMoreSounds.onDisable(lethalDamages::clear);
+    }
+
+    private @Nullable EnumMap<EntityDamageEvent.DamageCause, PlayableRichSound> specificDeaths;
     private @Nullable PlayableRichSound playerKilled;
     private @Nullable PlayableRichSound playerKill;
 
     public OnPlayerDeath(@NotNull PlayMoreSounds plugin) {
         super(plugin);
-        lastDamageKey = new NamespacedKey(plugin, "last_damage");
-        killerUUIDKey = new NamespacedKey(plugin, "killer_uuid");
+    }
+
+    /**
+     * Sets the player who is about to kill another player, so kill and killed sounds can be played on death.
+     *
+     * @param victim The player receiving lethal damage.
+     * @param killer The player dealing the damage.
+     */
+    static void setKiller(@NotNull Player victim, @NotNull Player killer) {
+        long id = victim.getEntityId();
+        long record = lethalDamages.get(id, NO_DEATH) & CAUSE_MASK;
+        lethalDamages.put(id, record | HAS_KILLER | ((long) killer.getEntityId() << 32));
+    }
+
+    /**
+     * Removes the lethal damage cause and killer of a player.
+     *
+     * @param player The player to forget.
+     */
+    static void forget(@NotNull Player player) {
+        lethalDamages.remove(player.getEntityId(), NO_DEATH);
+    }
+
+    private static @Nullable Player getKiller(@NotNull Player victim, int killerId) {
+        // The killer tracked by the server is most likely the same.
+        Player killer = victim.getKiller();
+        if (killer != null && killer.getEntityId() == killerId) return killer;
+
+        for (Player player : Bukkit.getOnlinePlayers()) if (player.getEntityId() == killerId) return player;
+        return null;
     }
 
     @Override
@@ -66,8 +108,17 @@ public final class OnPlayerDeath extends PMSListener {
         for (Map.Entry<String, Object> deathType : deathTypes.getNodes().entrySet()) {
             if (deathType.getValue() instanceof ConfigurationSection deathTypeSection) {
                 if (deathTypeSection.getBoolean("Enabled").orElse(false)) {
-                    if (specificDeaths == null) specificDeaths = new HashMap<>();
-                    specificDeaths.put(deathType.getKey().toUpperCase(), getRichSound(deathTypeSection));
+                    EntityDamageEvent.DamageCause cause;
+
+                    try {
+                        cause = EntityDamageEvent.DamageCause.valueOf(deathType.getKey().toUpperCase());
+                    } catch (IllegalArgumentException ignored) {
+                        // Damage cause does not exist in this server version.
+                        continue;
+                    }
+
+                    if (specificDeaths == null) specificDeaths = new EnumMap<>(EntityDamageEvent.DamageCause.class);
+                    specificDeaths.put(cause, getRichSound(deathTypeSection));
                 }
             }
         }
@@ -85,6 +136,7 @@ public final class OnPlayerDeath extends PMSListener {
             if (isLoaded()) {
                 HandlerList.unregisterAll(this);
                 setLoaded(false);
+                lethalDamages.clear();
             }
         }
     }
@@ -92,42 +144,40 @@ public final class OnPlayerDeath extends PMSListener {
     @EventHandler
     public void onPlayerDeath(PlayerDeathEvent event) {
         var player = event.getEntity();
-        var playerData = player.getPersistentDataContainer();
+        long record = lethalDamages.remove(player.getEntityId(), NO_DEATH);
 
-        // Checking if player was killed by another player.
-        if (playerKill != null || playerKilled != null) {
-            String killerUUID = playerData.get(killerUUIDKey, PersistentDataType.STRING);
+        if (record == NO_DEATH) {
+            // Playing default death sound.
+            if (getRichSound() != null) getRichSound().play(player);
+            return;
+        }
 
-            if (killerUUID != null) {
-                playerData.remove(killerUUIDKey);
-                if (playerKill != null) {
-                    var killer = Bukkit.getPlayer(UUID.fromString(killerUUID));
+        // Checking if player was killed by another player.
+        if ((record & HAS_KILLER) != 0 && (playerKill != null || playerKilled != null)) {
+            if (playerKill != null) {
+                var killer = getKiller(player, (int) (record >>> 32));
 
-                    if (killer != null) playerKill.play(killer);
-                }
-                if (playerKilled != null) {
-                    playerKilled.play(player);
+                if (killer != null) playerKill.play(killer);
+            }
+            if (playerKilled != null) {
+                playerKilled.play(player);
 
-                    // If the death sounds, specific or default should be prevented from being played.
-                    if (playerKilled.getSection().getBoolean("Prevent Death Sounds").orElse(false)) return;
-                }
+                // If the death sounds, specific or default should be prevented from being played.
+                if (playerKilled.getProperties().preventDeathSounds()) return;
             }
         }
 
-        if (specificDeaths != null) {
-            // Checking cause of death to play specific death sounds.
-            String lastDamage = playerData.get(lastDamageKey, PersistentDataType.STRING);
+        int cause = (int) (record & CAUSE_MASK);
 
-            if (lastDamage != null) {
-                playerData.remove(lastDamageKey);
-                var specificDeathSound = specificDeaths.get(lastDamage);
+        if (specificDeaths != null && cause != 0) {
+            // Checking cause of death to play specific death sounds.
+            var specificDeathSound = specificDeaths.get(causes[cause - 1]);
 
-                if (specificDeathSound != null) {
-                    specificDeathSound.play(player);
+            if (specificDeathSound != null) {
+                specificDeathSound.play(player);
 
-                    // If the default death sound should be prevented from being played.
-                    if (specificDeathSound.getSection().getBoolean("Prevent Default Sound").orElse(false)) return;
-                }
+                // If the default death sound should be prevented from being played.
+                if (specificDeathSound.getProperties().preventDefaultSound()) return;
             }
         }
 
@@ -140,12 +190,25 @@ public final class OnPlayerDeath extends PMSListener {
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onEntityDamage(EntityDamageEvent event) {
         if (specificDeaths == null) return;
-        var entity = event.getEntity();
 
-        // The players last damage cause is set here, so it can be get in PlayerDeathEvent and be used to play specific death sounds.
-        // Then, after the sound is played, the last damage key is removed from player data.
-        if (!event.isCancelled() && entity instanceof Player player && player.getHealth() - event.getFinalDamage() <= 0) {
-            entity.getPersistentDataContainer().set(lastDamageKey, PersistentDataType.STRING, event.getCause().name());
+        // The players last damage cause is kept here, so it can be get in PlayerDeathEvent and be used to play specific death sounds.
+        // Then, once the player dies, respawns or quits, it is forgotten.
+        if (!event.isCancelled() && event.getEntity() instanceof Player player && player.getHealth() - event.getFinalDamage() <= 0) {
+            long id = player.getEntityId();
+            long record = lethalDamages.get(id, NO_DEATH) & ~CAUSE_MASK;
+            lethalDamages.put(id, record | (event.getCause().ordinal() + 1));
         }
     }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntityResurrect(EntityResurrectEvent event) {
+        // Damage blocked by a totem did not kill, so it should not be used on the next death.
+        if (!event.isCancelled() && event.getEntity() instanceof Player player) forget(player);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        // Making sure nothing of the last life is used on the next death.
+        forget(event.getPlayer());
+    }
 }
@@ -84,7 +84,7 @@ public final class OnPlayerGameModeChange extends PMSListener {
             if (!event.isCancelled() || !specificGameModeSound.isCancellable()) {
                 specificGameModeSound.play(player);
 
-                if (specificGameModeSound.getSection().getBoolean("Prevent Default Sound").orElse(false))
+                if (specificGameModeSound.getProperties().preventDefaultSound())
                     defaultSound = false;
             }
         }
@@ -91,7 +91,7 @@ public final class OnPlayerInteract implements Listener {
         event.setUseItemInHand(Event.Result.DENY);
 
         if (!player.hasPermission("playmoresounds.region.select.overlap")) {
-            for (SoundRegion region : RegionManager.getRegions()) {
+            for (SoundRegion region : RegionManager.getRegionsNear(clicked)) {
                 if (!Objects.equals(region.getCreator(), uuid) && region.isInside(clicked)) {
                     lang.send(player, lang.get("Region.Select.Error.Overlap"));
                     return;
@@ -21,8 +21,8 @@ package com.epicnicity322.playmoresounds.bukkit.listeners;
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
-import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
+import org.bukkit.Material;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.HandlerList;
@@ -30,11 +30,10 @@ import org.bukkit.event.player.PlayerItemHeldEvent;
 import org.bukkit.inventory.ItemStack;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.EnumMap;
 
 public final class OnPlayerItemHeld extends PMSListener {
-    private final @NotNull HashMap<String, PlayableRichSound> criteriaSounds = new HashMap<>();
+    private @NotNull EnumMap<Material, PlayableRichSound[]> criteriaSounds = new EnumMap<>(Material.class);
 
     public OnPlayerItemHeld(@NotNull PlayMoreSounds plugin) {
         super(plugin);
@@ -47,19 +46,9 @@ public final class OnPlayerItemHeld extends PMSListener {
 
     @Override
     public void load() {
-        criteriaSounds.clear();
-
         var sounds = Configurations.SOUNDS.getConfigurationHolder().getConfiguration();
-        var itemsHeld = Configurations.ITEMS_HELD.getConfigurationHolder().getConfiguration();
-
-        for (Map.Entry<String, Object> node : itemsHeld.getNodes().entrySet()) {
-            if (node.getValue() instanceof ConfigurationSection section) {
-                if (section.getBoolean("Enabled").orElse(false) && section.contains("Sounds")) {
-                    criteriaSounds.put(node.getKey(), getRichSound(section));
-                }
-            }
-        }
 
+        criteriaSounds = EnumCriteria.compileItemSounds(Configurations.ITEMS_HELD.getConfigurationHolder().getConfiguration(), "items held.yml");
         setRichSound(getRichSound(sounds.getConfigurationSection(getName())));
 
         if (getRichSound() != null || !criteriaSounds.isEmpty()) {
@@ -82,18 +71,16 @@ public final class OnPlayerItemHeld extends PMSListener {
         ItemStack item = player.getInventory().getItem(event.getNewSlot());
 
         if (item != null) {
-            String material = item.getType().name();
-
-            for (Map.Entry<String, PlayableRichSound> criterion : criteriaSounds.entrySet()) {
-                if (OnEntityDamageByEntity.matchesCriterion(criterion.getKey(), material)) {
-                    var criterionSound = criterion.getValue();
+            PlayableRichSound[] criteria = criteriaSounds.get(item.getType());
 
+            if (criteria != null) {
+                for (PlayableRichSound criterionSound : criteria) {
                     if (!event.isCancelled() || !criterionSound.isCancellable()) {
                         criterionSound.play(player);
 
-                        if (criterionSound.getSection().getBoolean("Prevent Other Sounds.Default Sound").orElse(false))
+                        if (criterionSound.getProperties().preventOtherDefault())
                             sound = null;
-                        if (criterionSound.getSection().getBoolean("Prevent Other Sounds.Other Criteria").orElse(false))
+                        if (criterionSound.getProperties().preventOtherCriteria())
                             break;
                     }
                 }
@@ -21,7 +21,7 @@ package com.epicnicity322.playmoresounds.bukkit.listeners;
 import com.epicnicity322.epicpluginlib.bukkit.reflection.ReflectionUtil;
 import com.epicnicity322.epicpluginlib.core.logger.ConsoleLogger;
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
-import com.epicnicity322.playmoresounds.bukkit.region.RegionManager;
+import com.epicnicity322.playmoresounds.bukkit.region.RegionMembership;
 import com.epicnicity322.playmoresounds.bukkit.region.SoundRegion;
 import com.epicnicity322.playmoresounds.bukkit.region.events.RegionEnterEvent;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
@@ -102,9 +102,7 @@ public final class OnPlayerJoin implements Listener {
         var config = Configurations.CONFIG.getConfigurationHolder().getConfiguration();
 
         // Calling region enter event.
-        for (SoundRegion region : RegionManager.getRegions()) {
-            if (!region.isInside(location)) continue;
-
+        for (SoundRegion region : RegionMembership.join(player, location)) {
             var regionEnterEvent = new RegionEnterEvent(region, player, location, location);
 
             // Checking if event should be played only when player accepts resource pack.
@@ -115,12 +113,12 @@ public final class OnPlayerJoin implements Listener {
             }
         }
 
+        TransitionPipeline.join(player, location);
+
         // Calling biome enter event.
-        String biome = location.getBlock().getBiome().name();
-        String world = location.getWorld().getName();
-        var biomesConfig = Configurations.BIOMES.getConfigurationHolder().getConfiguration();
+        var biomeSounds = OnPlayerMove.getBiomeSounds(location.getWorld().getName(), BiomeCache.getBiome(location));
 
-        if (biomesConfig.getBoolean(world + "." + biome + ".Enter.Enabled").orElse(false) || biomesConfig.getBoolean(world + "." + biome + ".Loop.Enabled").orElse(false)) {
+        if (biomeSounds != null && (biomeSounds.enter() != null || biomeSounds.loop() != null)) {
             // Checking if event should be played only when player accepts resource pack.
             if (resourcePack) {
                 OnPlayerResourcePackStatus.waitUntilResourcePackStatus(player, () -> OnPlayerMove.checkBiomeEnterLeaveSounds(null, player, location, location, false));
@@ -18,19 +18,16 @@
 
 package com.epicnicity322.playmoresounds.bukkit.listeners;
 
-import com.epicnicity322.epicpluginlib.core.config.ConfigurationHolder;
+import com.epicnicity322.epicpluginlib.core.logger.ConsoleLogger;
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
-import com.epicnicity322.playmoresounds.bukkit.region.RegionManager;
-import com.epicnicity322.playmoresounds.bukkit.region.SoundRegion;
-import com.epicnicity322.playmoresounds.bukkit.region.events.RegionEnterEvent;
-import com.epicnicity322.playmoresounds.bukkit.region.events.RegionLeaveEvent;
+import com.epicnicity322.playmoresounds.bukkit.region.RegionMembership;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
-import com.epicnicity322.playmoresounds.bukkit.sound.SoundManager;
+import com.epicnicity322.playmoresounds.bukkit.sound.SoundLoops;
+import com.epicnicity322.playmoresounds.bukkit.sound.StopLedgers;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
 import com.epicnicity322.playmoresounds.core.sound.SoundType;
 import com.epicnicity322.yamlhandler.Configuration;
 import com.epicnicity322.yamlhandler.ConfigurationSection;
-import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.block.Biome;
 import org.bukkit.entity.Player;
@@ -39,143 +36,141 @@ import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerMoveEvent;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.UUID;
+import java.util.*;
 
 public final class OnPlayerMove implements Listener {
-    private static final @NotNull ConfigurationHolder biomes = Configurations.BIOMES.getConfigurationHolder();
-    private static final @NotNull HashMap<UUID, BukkitRunnable> biomesInLoop = new HashMap<>();
-    private static final @NotNull HashMap<String, HashSet<String>> soundsToStop = new HashMap<>();
+    private static final @NotNull HashMap<UUID, SoundLoops.SoundLoop> biomesInLoop = new HashMap<>();
+    /**
+     * The sounds of biomes.yml by world name, compiled every time the configurations are loaded.
+     */
+    private static volatile @NotNull Map<String, EnumMap<Biome, BiomeSounds>> biomeSounds = Collections.emptyMap();
 
     static {
         PlayMoreSounds.onDisable(() -> biomesInLoop.entrySet().removeIf(entry -> {
             entry.getValue().cancel();
             return true;
         }));
-    }
 
-    static void callRegionEnterLeaveEvents(@Nullable Cancellable event, @NotNull Player player, @NotNull Location from, @NotNull Location to) {
-        for (SoundRegion region : RegionManager.getRegions()) {
-            boolean isInFrom = region.isInside(from);
-            boolean isInTo = region.isInside(to);
-
-            if (isInFrom && !isInTo) {
-                var regionLeaveEvent = new RegionLeaveEvent(region, player, from, to);
-                Bukkit.getPluginManager().callEvent(regionLeaveEvent);
-
-                if (regionLeaveEvent.isCancelled() && event != null)
-                    event.setCancelled(true);
-            } else if (!isInFrom && isInTo) {
-                var regionEnterEvent = new RegionEnterEvent(region, player, from, to);
-                Bukkit.getPluginManager().callEvent(regionEnterEvent);
-
-                if (regionEnterEvent.isCancelled() && event != null)
-                    event.setCancelled(true);
-            }
-        }
+        Runnable biomesCompiler = () -> biomeSounds = compileBiomes(Configurations.BIOMES.getConfigurationHolder().getConfiguration());
+
+        PlayMoreSounds.onInstance(biomesCompiler);
+        PlayMoreSounds.onReload(biomesCompiler);
     }
 
-    static void checkBiomeEnterLeaveSounds(@Nullable Cancellable cancellable, @NotNull Player player, @NotNull Location from, @NotNull Location to, boolean checkDifferent) {
-        // Playing sounds for biomes.yml.
-        Configuration biomesConfiguration = biomes.getConfiguration();
+    private static @NotNull Map<String, EnumMap<Biome, BiomeSounds>> compileBiomes(@NotNull Configuration biomes) {
+        var compiled = new HashMap<String, EnumMap<Biome, BiomeSounds>>();
 
-        if (biomesConfiguration.contains(from.getWorld().getName()) || !biomesInLoop.isEmpty()) {
-            Biome fromBiome = from.getBlock().getBiome();
-            Biome toBiome = to.getBlock().getBiome();
+        for (Map.Entry<String, Object> world : biomes.getNodes().entrySet()) {
+            if (!(world.getValue() instanceof ConfigurationSection worldSection)) continue;
 
-            if (!checkDifferent || fromBiome != toBiome) {
-                soundsToStop.entrySet().removeIf(entry -> {
-                    String key = entry.getKey();
+            var worldSounds = new EnumMap<Biome, BiomeSounds>(Biome.class);
 
-                    if (key.startsWith(player.getUniqueId().toString())) {
-                        long delay = Long.parseLong(key.substring(key.indexOf(";") + 1));
+            for (Map.Entry<String, Object> biome : worldSection.getNodes().entrySet()) {
+                if (!(biome.getValue() instanceof ConfigurationSection biomeSection)) continue;
 
-                        SoundManager.stopSounds(player, entry.getValue(), delay);
-                        return true;
-                    }
+                Biome type;
 
-                    return false;
-                });
+                try {
+                    type = Biome.valueOf(biome.getKey());
+                } catch (IllegalArgumentException e) {
+                    PlayMoreSounds.getConsoleLogger().log("The biome " + biome.getKey() + " in world " + world.getKey() + " of biomes.yml does not exist in this version, so it was ignored.", ConsoleLogger.Level.WARN);
+                    continue;
+                }
 
-                UUID key = player.getUniqueId();
+                BiomeSounds sounds = BiomeSounds.of(biomeSection);
+                if (sounds != null) worldSounds.put(type, sounds);
+            }
 
-                if (biomesInLoop.containsKey(key)) {
-                    biomesInLoop.get(key).cancel();
-                    biomesInLoop.remove(key);
-                }
+            if (!worldSounds.isEmpty()) compiled.put(world.getKey(), worldSounds);
+        }
 
-                ConfigurationSection loop = biomesConfiguration.getConfigurationSection(to.getWorld().getName() + '.' + toBiome.name() + ".Loop");
-                ConfigurationSection leave = checkDifferent ? biomesConfiguration.getConfigurationSection(from.getWorld().getName() + '.' + fromBiome.name() + ".Leave") : null;
-                boolean playEnterSound = true;
-                boolean cancelled = cancellable != null && cancellable.isCancelled();
+        return compiled;
+    }
 
-                if (loop != null) {
-                    var loopSound = new PlayableRichSound(loop);
+    /**
+     * @param world The name of the world.
+     * @param biome The biome.
+     * @return The compiled sounds of this biome in biomes.yml, or null if the biome has no enabled sounds.
+     */
+    static @Nullable BiomeSounds getBiomeSounds(@NotNull String world, @NotNull Biome biome) {
+        EnumMap<Biome, BiomeSounds> worldSounds = biomeSounds.get(world);
+        return worldSounds == null ? null : worldSounds.get(biome);
+    }
 
-                    if (loopSound.isEnabled() && (!cancelled || !loopSound.isCancellable())) {
-                        long delay = loop.getNumber("Delay").orElse(0).longValue();
-                        long period = loop.getNumber("Period").orElse(0).longValue();
+    static void callRegionEnterLeaveEvents(@Nullable Cancellable event, @NotNull Player player, @NotNull Location from, @NotNull Location to) {
+        RegionMembership.move(event, player, from, to);
+    }
 
-                        biomesInLoop.put(key, loopSound.playInLoop(player, player::getLocation, delay, period, () -> {
-                            Configuration updatedBiomes = biomes.getConfiguration();
+    static void checkBiomeEnterLeaveSounds(@Nullable Cancellable cancellable, @NotNull Player player, @NotNull Location from, @NotNull Location to, boolean checkDifferent) {
+        // Biomes are the same in a 4x4x4 cell.
+        if (checkDifferent && BiomeCache.isSameCell(from, to)) return;
 
-                            return player.getLocation().getBlock().getBiome() != toBiome
-                                    || !updatedBiomes.getBoolean(loop.getPath() + ".Enabled").orElse(false)
-                                    || !player.getWorld().equals(to.getWorld());
-                        }));
+        // Playing sounds for biomes.yml.
+        Map<String, EnumMap<Biome, BiomeSounds>> biomeSounds = OnPlayerMove.biomeSounds;
+        String fromWorld = from.getWorld().getName();
+        String toWorld = to.getWorld().getName();
 
-                        stopOnExit(player, loop);
+        if (!biomeSounds.containsKey(fromWorld) && !biomeSounds.containsKey(toWorld) && biomesInLoop.isEmpty()) return;
 
-                        if (loop.getBoolean("Prevent Enter Sound").orElse(false)) playEnterSound = false;
-                    }
-                }
+        Biome fromBiome = BiomeCache.getBiome(from);
+        Biome toBiome = BiomeCache.getBiome(to);
 
-                if (playEnterSound) {
-                    var enter = biomesConfiguration.getConfigurationSection(to.getWorld().getName() + '.' + toBiome.name() + ".Enter");
+        if (checkDifferent && fromBiome == toBiome) return;
 
-                    if (enter != null) {
-                        var enterSound = new PlayableRichSound(enter);
+        StopLedgers.stop(player, BiomeSounds.class);
 
-                        if (!cancelled || !enterSound.isCancellable()) {
-                            enterSound.play(player);
+        UUID key = player.getUniqueId();
+        SoundLoops.SoundLoop previousLoop = biomesInLoop.remove(key);
 
-                            if (enterSound.isEnabled())
-                                stopOnExit(player, enter);
-                        }
-                    }
-                }
+        if (previousLoop != null) previousLoop.cancel();
 
-                if (leave != null) {
-                    var leaveSound = new PlayableRichSound(leave);
+        BiomeSounds toSounds = getBiomeSounds(toWorld, toBiome);
+        BiomeSounds fromSounds = checkDifferent ? getBiomeSounds(fromWorld, fromBiome) : null;
+        boolean playEnterSound = true;
+        boolean cancelled = cancellable != null && cancellable.isCancelled();
 
-                    if (!cancelled || !leaveSound.isCancellable()) leaveSound.play(player);
-                }
+        if (toSounds != null) {
+            PlayableRichSound loopSound = toSounds.loop();
+
+            if (loopSound != null && (!cancelled || !loopSound.isCancellable())) {
+                biomesInLoop.put(key, loopSound.playInLoop(player, player::getLocation, toSounds.loopDelay(), toSounds.loopPeriod(), () -> {
+                    if (!player.getWorld().equals(to.getWorld())) return true;
+
+                    Biome currentBiome = BiomeCache.getBiome(player.getLocation());
+                    if (currentBiome != toBiome) return true;
+
+                    // Loop was disabled on a reload.
+                    BiomeSounds updated = getBiomeSounds(toWorld, currentBiome);
+                    return updated == null || updated.loop() == null;
+                }));
+
+                stopOnExit(player, toSounds.loopStopOnExit());
+
+                if (toSounds.preventEnterSound()) playEnterSound = false;
             }
-        }
-    }
 
-    private static void stopOnExit(Player player, ConfigurationSection section) {
-        if (section.getBoolean("Stop On Exit.Enabled").orElse(false)) {
-            String key = player.getUniqueId() + ";" + section.getNumber("Stop On Exit.Delay").orElse(0);
-            HashSet<String> sounds = soundsToStop.getOrDefault(key, new HashSet<>());
-            ConfigurationSection soundsSection = section.getConfigurationSection("Sounds");
+            PlayableRichSound enterSound = toSounds.enter();
 
-            if (soundsSection != null)
-                for (String sound : soundsSection.getNodes().keySet()) {
-                    String soundToStop = soundsSection.getString(sound + ".Sound").orElse("");
+            if (playEnterSound && enterSound != null && (!cancelled || !enterSound.isCancellable())) {
+                enterSound.play(player);
+                stopOnExit(player, toSounds.enterStopOnExit());
+            }
+        }
 
-                    sounds.add(SoundType.getPresentSoundNames().contains(soundToStop) ? SoundType.valueOf(soundToStop).getSound().orElse("") : soundToStop);
-                }
+        if (fromSounds != null) {
+            PlayableRichSound leaveSound = fromSounds.leave();
 
-            soundsToStop.put(key, sounds);
+            if (leaveSound != null && (!cancelled || !leaveSound.isCancellable())) leaveSound.play(player);
         }
     }
 
+    private static void stopOnExit(@NotNull Player player, @Nullable StopOnExit stopOnExit) {
+        if (stopOnExit != null) StopLedgers.add(player, BiomeSounds.class, stopOnExit.delay(), stopOnExit.sounds());
+    }
+
     @EventHandler(priority = EventPriority.HIGH)
     public void onPlayerMove(PlayerMoveEvent event) {
         Location from = event.getFrom();
@@ -184,6 +179,12 @@ public final class OnPlayerMove implements Listener {
         if (from.getBlockX() != to.getBlockX() || from.getBlockY() != to.getBlockY() || from.getBlockZ() != to.getBlockZ()) {
             Player player = event.getPlayer();
 
+            if (TransitionPipeline.isLoaded()) {
+                // Transitions found by the pipeline can't cancel the movement, so only movements that happen are set.
+                if (!event.isCancelled()) TransitionPipeline.move(player, to);
+                return;
+            }
+
             // Calling region events.
             if (!event.isCancelled())
                 callRegionEnterLeaveEvents(event, player, from, to);
@@ -191,4 +192,72 @@ public final class OnPlayerMove implements Listener {
             checkBiomeEnterLeaveSounds(event, player, from, to, true);
         }
     }
+
+    /**
+     * The sounds of a biome in biomes.yml, built when the configurations are loaded so changing biomes doesn't need to
+     * look up the configuration.
+     *
+     * @param enter             The enabled enter sound, or null.
+     * @param leave             The enabled leave sound, or null.
+     * @param loop              The enabled loop sound, or null.
+     * @param loopDelay         The delay before the loop starts.
+     * @param loopPeriod        The period between each play of the loop.
+     * @param preventEnterSound Whether the enter sound should not play when the loop plays.
+     * @param enterStopOnExit   The sounds to stop when the player leaves the biome after the enter sound played.
+     * @param loopStopOnExit    The sounds to stop when the player leaves the biome after the loop started.
+     */
+    record BiomeSounds(@Nullable PlayableRichSound enter, @Nullable PlayableRichSound leave,
+                       @Nullable PlayableRichSound loop, long loopDelay, long loopPeriod, boolean preventEnterSound,
+                       @Nullable StopOnExit enterStopOnExit, @Nullable StopOnExit loopStopOnExit) {
+        private static @Nullable BiomeSounds of(@NotNull ConfigurationSection biome) {
+            ConfigurationSection enterSection = biome.getConfigurationSection("Enter");
+            ConfigurationSection loopSection = biome.getConfigurationSection("Loop");
+            PlayableRichSound enter = sound(enterSection);
+            PlayableRichSound leave = sound(biome.getConfigurationSection("Leave"));
+            PlayableRichSound loop = sound(loopSection);
+
+            if (enter == null && leave == null && loop == null) return null;
+
+            return new BiomeSounds(enter, leave, loop,
+                    loop == null ? 0 : loopSection.getNumber("Delay").orElse(0).longValue(),
+                    loop == null ? 0 : loopSection.getNumber("Period").orElse(0).longValue(),
+                    loop != null && loopSection.getBoolean("Prevent Enter Sound").orElse(false),
+                    enter == null ? null : StopOnExit.of(enterSection), loop == null ? null : StopOnExit.of(loopSection));
+        }
+
+        private static @Nullable PlayableRichSound sound(@Nullable ConfigurationSection section) {
+            if (section == null || !section.getBoolean("Enabled").orElse(false)) return null;
+
+            try {
+                return new PlayableRichSound(section);
+            } catch (IllegalArgumentException e) {
+                PlayMoreSounds.getConsoleLogger().log("The sound " + section.getPath() + " in config biomes.yml has a child sound with invalid namespaced key characters, so it was ignored.", ConsoleLogger.Level.WARN);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The sounds to stop when a player leaves a biome.
+     *
+     * @param delay  The delay in ticks to stop the sounds.
+     * @param sounds The names of the sounds to stop.
+     */
+    record StopOnExit(long delay, @NotNull Set<String> sounds) {
+        private static @Nullable StopOnExit of(@NotNull ConfigurationSection section) {
+            if (!section.getBoolean("Stop On Exit.Enabled").orElse(false)) return null;
+
+            var sounds = new HashSet<String>();
+            ConfigurationSection soundsSection = section.getConfigurationSection("Sounds");
+
+            if (soundsSection != null)
+                for (String sound : soundsSection.getNodes().keySet()) {
+                    String soundToStop = soundsSection.getString(sound + ".Sound").orElse("");
+
+                    sounds.add(SoundType.getPresentSoundNames().contains(soundToStop) ? SoundType.valueOf(soundToStop).getSound().orElse("") : soundToStop);
+                }
+
+            return new StopOnExit(section.getNumber("Stop On Exit.Delay").orElse(0).longValue(), Set.copyOf(sounds));
+        }
+    }
 }
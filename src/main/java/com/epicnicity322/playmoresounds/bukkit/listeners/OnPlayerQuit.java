@@ -19,10 +19,12 @@
 package com.epicnicity322.playmoresounds.bukkit.listeners;
 
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
-import com.epicnicity322.playmoresounds.bukkit.region.RegionManager;
+import com.epicnicity322.playmoresounds.bukkit.region.RegionMembership;
 import com.epicnicity322.playmoresounds.bukkit.region.SoundRegion;
 import com.epicnicity322.playmoresounds.bukkit.region.events.RegionLeaveEvent;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
+import com.epicnicity322.playmoresounds.bukkit.sound.SoundLoops;
+import com.epicnicity322.playmoresounds.bukkit.sound.StopLedgers;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
 import org.bukkit.Bukkit;
 import org.bukkit.event.EventHandler;
@@ -49,13 +51,18 @@ public final class OnPlayerQuit implements Listener {
         var player = event.getPlayer();
         var location = player.getLocation();
 
+        TransitionPipeline.quit(player);
+
         // Calling region leave event.
-        for (SoundRegion region : RegionManager.getRegions()) {
-            if (region.isInside(location)) {
-                Bukkit.getPluginManager().callEvent(new RegionLeaveEvent(region, player, location, location));
-            }
+        for (SoundRegion region : RegionMembership.quit(player)) {
+            Bukkit.getPluginManager().callEvent(new RegionLeaveEvent(region, player, location, location));
         }
 
         if (leaveServer != null) leaveServer.play(player);
+
+        // Region leave events above already cancel region loops, this makes sure no other loops keep playing.
+        SoundLoops.cancel(player);
+        StopLedgers.remove(player);
+        OnPlayerDeath.forget(player);
     }
 }
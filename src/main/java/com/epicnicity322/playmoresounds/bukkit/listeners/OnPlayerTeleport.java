@@ -57,10 +57,14 @@ public final class OnPlayerTeleport implements Listener {
         var from = event.getFrom();
         var to = event.getTo();
 
-        if (!event.isCancelled())
-            OnPlayerMove.callRegionEnterLeaveEvents(event, player, from, to);
+        if (TransitionPipeline.isLoaded()) {
+            if (!event.isCancelled()) TransitionPipeline.move(player, to);
+        } else {
+            if (!event.isCancelled())
+                OnPlayerMove.callRegionEnterLeaveEvents(event, player, from, to);
 
-        OnPlayerMove.checkBiomeEnterLeaveSounds(event, player, from, to, true);
+            OnPlayerMove.checkBiomeEnterLeaveSounds(event, player, from, to, true);
+        }
 
         if (event.getCause() != PlayerTeleportEvent.TeleportCause.COMMAND) return;
 
@@ -72,7 +76,7 @@ public final class OnPlayerTeleport implements Listener {
                 if (playWorldChange) {
                     worldChange.play(player);
 
-                    if (worldChange.getSection().getBoolean("Prevent Teleport Sound").orElse(false)) return;
+                    if (worldChange.getProperties().preventTeleportSound()) return;
                 }
 
                 if (playTeleport)
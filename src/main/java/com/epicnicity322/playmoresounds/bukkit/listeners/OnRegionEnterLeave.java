@@ -20,28 +20,27 @@ package com.epicnicity322.playmoresounds.bukkit.listeners;
 
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.bukkit.region.RegionManager;
+import com.epicnicity322.playmoresounds.bukkit.region.RegionMembership;
 import com.epicnicity322.playmoresounds.bukkit.region.SoundRegion;
 import com.epicnicity322.playmoresounds.bukkit.region.events.RegionEnterEvent;
 import com.epicnicity322.playmoresounds.bukkit.region.events.RegionLeaveEvent;
 import com.epicnicity322.playmoresounds.bukkit.sound.PlayableRichSound;
-import com.epicnicity322.playmoresounds.bukkit.sound.PlayableSound;
-import com.epicnicity322.playmoresounds.bukkit.sound.SoundManager;
+import com.epicnicity322.playmoresounds.bukkit.sound.RichSoundProperties;
+import com.epicnicity322.playmoresounds.bukkit.sound.SoundLoops;
+import com.epicnicity322.playmoresounds.bukkit.sound.StopLedgers;
 import com.epicnicity322.playmoresounds.core.config.Configurations;
-import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.UUID;
 
 public final class OnRegionEnterLeave extends PMSListener {
-    private @Nullable HashMap<String, BukkitRunnable> loopingRegions;
+    private @Nullable HashMap<String, SoundLoops.SoundLoop> loopingRegions;
     private @Nullable PlayableRichSound regionEnterSound;
     private @Nullable PlayableRichSound regionLeaveSound;
 
@@ -79,28 +78,22 @@ public final class OnRegionEnterLeave extends PMSListener {
         PlayableRichSound loopSound = region.getLoopSound();
 
         if (loopSound != null && (!event.isCancelled() || !loopSound.isCancellable())) {
-            ConfigurationSection loopSection = loopSound.getSection();
-            long delay = loopSection.getNumber("Delay").orElse(0).longValue();
-            long period = loopSection.getNumber("Period").orElse(0).longValue();
+            RichSoundProperties loopProperties = loopSound.getProperties();
             String loopKey = player.getUniqueId() + ";" + regionId;
 
             if (loopingRegions == null) loopingRegions = new HashMap<>();
 
-            BukkitRunnable previousRunnable = loopingRegions.put(loopKey, loopSound.playInLoop(player, player::getLocation,
-                    delay, period, () -> {
-                        for (var currentRegion : RegionManager.getRegions()) {
-                            if (currentRegion.getId().equals(regionId)) {
-                                // Break only if sound has changed or if player is no longer inside region.
-                                return !currentRegion.isInside(player.getLocation()) || !loopSound.equals(currentRegion.getLoopSound());
-                            }
-                        }
-
-                        // Break if region is not found on the loop.
-                        return true;
+            SoundLoops.SoundLoop previousLoop = loopingRegions.put(loopKey, loopSound.playInLoop(player, player::getLocation,
+                    loopProperties.delay(), loopProperties.period(), () -> {
+                        SoundRegion currentRegion = RegionManager.getRegion(regionId);
+
+                        // Break if region was removed, if sound has changed or if player is no longer inside region.
+                        return currentRegion == null || !RegionMembership.isInside(player, regionId) || !loopSound.equals(currentRegion.getLoopSound());
                     }));
 
-            if (previousRunnable != null && !previousRunnable.isCancelled()) previousRunnable.cancel();
-            if (loopSection.getBoolean("Prevent Default Sound").orElse(false)) playDefaultSound = false;
+            if (previousLoop != null && !previousLoop.isCancelled()) previousLoop.cancel();
+            StopLedgers.add(player, regionId, loopSound, true);
+            if (loopProperties.preventDefaultSound()) playDefaultSound = false;
         }
 
         // Playing enter sound
@@ -108,12 +101,14 @@ public final class OnRegionEnterLeave extends PMSListener {
 
         if (enterSound != null && (!event.isCancelled() || !enterSound.isCancellable())) {
             enterSound.play(player);
-            if (enterSound.getSection().getBoolean("Prevent Default Sound").orElse(false)) return;
+            StopLedgers.add(player, regionId, enterSound, true);
+            if (enterSound.getProperties().preventDefaultSound()) return;
         }
 
         // Playing default enter sound in sounds.yml
         if (playDefaultSound && (!event.isCancelled() || !regionEnterSound.isCancellable())) {
             regionEnterSound.play(player);
+            StopLedgers.add(player, regionId, regionEnterSound, true);
         }
     }
 
@@ -123,27 +118,23 @@ public final class OnRegionEnterLeave extends PMSListener {
         SoundRegion region = event.getRegion();
         boolean online = player.isOnline();
 
-        // Must cancel the BukkitRunnable in case the player left the region or quit the server.
+        // Must cancel the loop in case the player left the region or quit the server.
         // If the player is online and the event is cancelled, it means the player didn't actually leave the region through move event.
         if (!online || !event.isCancelled()) {
             String loopKey = player.getUniqueId() + ";" + region.getId();
-            BukkitRunnable loopingRunnable = loopingRegions == null ? null : loopingRegions.remove(loopKey);
+            SoundLoops.SoundLoop loop = loopingRegions == null ? null : loopingRegions.remove(loopKey);
 
-            if (loopingRunnable != null && !loopingRunnable.isCancelled()) loopingRunnable.cancel();
+            if (loop != null && !loop.isCancelled()) loop.cancel();
 
             // Avoiding the hassle of stopping the sound in case the player is offline.
-            if (online) {
-                stopOnExit(player, region.getLoopSound());
-                stopOnExit(player, region.getEnterSound());
-                stopOnExit(player, regionEnterSound);
-            }
+            if (online) StopLedgers.stop(player, region.getId());
         }
 
         PlayableRichSound leaveSound = region.getLeaveSound();
 
         if (leaveSound != null && (!event.isCancelled() || !leaveSound.isCancellable())) {
             leaveSound.play(player);
-            if (leaveSound.getSection().getBoolean("Prevent Default Sound").orElse(false)) return;
+            if (leaveSound.getProperties().preventDefaultSound()) return;
         }
 
         // Playing default leave sound in sounds.yml
@@ -151,19 +142,4 @@ public final class OnRegionEnterLeave extends PMSListener {
             regionLeaveSound.play(player);
         }
     }
-
-    private void stopOnExit(@NotNull Player player, @Nullable PlayableRichSound playingSound) {
-        if (playingSound == null) return;
-
-        if (playingSound.getSection().getBoolean("Stop On Exit.Enabled").orElse(true)) {
-            // SoundManager#stopSounds accepts a collection with the sound names to stop.
-            HashSet<String> toStop = new HashSet<>(playingSound.getChildSounds().size());
-
-            for (PlayableSound sound : playingSound.getChildSounds()) {
-                toStop.add(sound.getSound());
-            }
-
-            SoundManager.stopSounds(player, toStop, playingSound.getSection().getNumber("Stop On Exit.Delay").orElse(0).longValue());
-        }
-    }
-}
\ No newline at end of file
+}
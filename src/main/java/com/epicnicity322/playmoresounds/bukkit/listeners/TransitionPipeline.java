@@ -0,0 +1,254 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.listeners;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.bukkit.region.RegionMembership;
+import com.epicnicity322.playmoresounds.core.PlayMoreSoundsCore;
+import com.epicnicity322.playmoresounds.core.config.Configurations;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.block.Biome;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Finds the region and biome changes of moving players in another thread, so the main thread only runs the resulting
+ * region events and biome sounds.
+ * <p>
+ * Every player has a slot with their latest position, which is replaced every time they move, so a player that moved
+ * many blocks in a tick is only checked once. A worker task takes the positions of the slots every tick and compares
+ * the regions at the position, looked up in the immutable snapshot of regions, and the biome with the ones of the last
+ * position taken. The changes are queued to be applied in the main thread on the next tick.
+ * <p>
+ * The pipeline is only used if "Performance.Async Transitions" is enabled in config. Region enter and leave events are
+ * called after the player has already moved, so cancelling them does not cancel the movement.
+ */
+public final class TransitionPipeline {
+    private static final @NotNull Object workerLock = new Object();
+    private static final @NotNull HashMap<UUID, Integer> slotIndexes = new HashMap<>();
+    private static final @NotNull ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private static final @NotNull ConcurrentLinkedQueue<Transition> transitions = new ConcurrentLinkedQueue<>();
+    private static volatile @NotNull AtomicReferenceArray<Position> slots = new AtomicReferenceArray<>(64);
+    private static volatile boolean loaded = false;
+    private static @Nullable BukkitTask workerTask;
+    private static @Nullable BukkitTask handoffTask;
+    /**
+     * The last position taken by the worker of each slot, only used by the worker.
+     */
+    private static @Nullable State @NotNull [] states = new State[64];
+
+    static {
+        PlayMoreSounds.onDisable(TransitionPipeline::stop);
+    }
+
+    private TransitionPipeline() {
+    }
+
+    /**
+     * Starts or stops the pipeline according to the "Performance.Async Transitions" setting in config.
+     *
+     * @param plugin The plugin to run the worker and main thread tasks.
+     */
+    public static synchronized void load(@NotNull PlayMoreSounds plugin) {
+        if (Configurations.CONFIG.getConfigurationHolder().getConfiguration().getBoolean("Performance.Async Transitions").orElse(false)) {
+            if (loaded) return;
+
+            loaded = true;
+            // Players already online start being tracked from where they are.
+            for (Player player : Bukkit.getOnlinePlayers()) join(player, player.getLocation());
+
+            workerTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, TransitionPipeline::work, 1, 1);
+            handoffTask = Bukkit.getScheduler().runTaskTimer(plugin, TransitionPipeline::handoff, 1, 1);
+        } else {
+            if (!loaded) return;
+
+            stop();
+            // Applying changes that were already found, so region memberships are up to date for move events.
+            handoff();
+        }
+    }
+
+    private static synchronized void stop() {
+        loaded = false;
+        if (workerTask != null) workerTask.cancel();
+        if (handoffTask != null) handoffTask.cancel();
+        workerTask = null;
+        handoffTask = null;
+        slotIndexes.clear();
+        freeSlots.clear();
+        slots = new AtomicReferenceArray<>(64);
+
+        synchronized (workerLock) {
+            states = new State[64];
+        }
+    }
+
+    /**
+     * @return Whether transitions are being found by the pipeline instead of in the move event.
+     */
+    static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Sets the latest position of a player, to have the region and biome changes found by the worker.
+     *
+     * @param player   The player who moved.
+     * @param location The location the player moved to.
+     */
+    static void move(@NotNull Player player, @NotNull Location location) {
+        if (!loaded) return;
+
+        Integer slot = slotIndexes.get(player.getUniqueId());
+        if (slot == null) {
+            join(player, location);
+            return;
+        }
+
+        slots.set(slot, new Position(player, location.clone(), BiomeCache.getBiome(location), false));
+    }
+
+    /**
+     * Starts tracking a player from a location, without any transitions.
+     *
+     * @param player   The player to track.
+     * @param location The location of the player.
+     */
+    static void join(@NotNull Player player, @NotNull Location location) {
+        if (!loaded) return;
+
+        Integer slot = slotIndexes.get(player.getUniqueId());
+
+        if (slot == null) {
+            slot = freeSlots.isEmpty() ? slotIndexes.size() : freeSlots.poll();
+            slotIndexes.put(player.getUniqueId(), slot);
+
+            AtomicReferenceArray<Position> slots = TransitionPipeline.slots;
+
+            if (slot >= slots.length()) {
+                var grown = new AtomicReferenceArray<Position>(slots.length() << 1);
+                for (int i = 0; i < slots.length(); ++i) grown.set(i, slots.get(i));
+                TransitionPipeline.slots = grown;
+            }
+        }
+
+        slots.set(slot, new Position(player, location.clone(), BiomeCache.getBiome(location), true));
+    }
+
+    /**
+     * Stops tracking a player that is quitting.
+     *
+     * @param player The player to stop tracking.
+     */
+    static void quit(@NotNull Player player) {
+        if (!loaded) return;
+
+        Integer slot = slotIndexes.remove(player.getUniqueId());
+        if (slot == null) return;
+
+        slots.set(slot, null);
+        freeSlots.add(slot);
+    }
+
+    private static void work() {
+        synchronized (workerLock) {
+            AtomicReferenceArray<Position> slots = TransitionPipeline.slots;
+            if (states.length < slots.length()) states = Arrays.copyOf(states, slots.length());
+
+            for (int i = 0; i < slots.length(); ++i) {
+                Position position = slots.getAndSet(i, null);
+                if (position == null) continue;
+
+                try {
+                    long[] regionIds = RegionMembership.regionIdsAt(position.location);
+                    State state = states[i];
+
+                    // The slot was taken by another player, or the player just joined.
+                    if (position.initial || state == null || state.player != position.player) {
+                        states[i] = new State(position.player, position.location, regionIds, position.biome);
+                        continue;
+                    }
+
+                    boolean regionsChanged = !Arrays.equals(state.regionIds, regionIds);
+                    boolean biomeChanged = state.biome != position.biome;
+
+                    if (regionsChanged || biomeChanged)
+                        transitions.add(new Transition(position.player, state.location, position.location,
+                                regionsChanged ? regionIds : null, biomeChanged));
+
+                    state.location = position.location;
+                    state.regionIds = regionIds;
+                    state.biome = position.biome;
+                } catch (Throwable t) {
+                    PlayMoreSoundsCore.getErrorHandler().report(t, "Transition Pipeline Worker Error:");
+                }
+            }
+        }
+    }
+
+    private static void handoff() {
+        Transition transition;
+
+        while ((transition = transitions.poll()) != null) {
+            Player player = transition.player;
+            if (!player.isOnline()) continue;
+
+            try {
+                if (transition.regionIds != null)
+                    RegionMembership.apply(player, transition.from, transition.to, transition.regionIds);
+                if (transition.biomeChanged)
+                    OnPlayerMove.checkBiomeEnterLeaveSounds(null, player, transition.from, transition.to, true);
+            } catch (Throwable t) {
+                PlayMoreSoundsCore.getErrorHandler().report(t, "Transition Pipeline Error:");
+            }
+        }
+    }
+
+    private record Position(@NotNull Player player, @NotNull Location location, @NotNull Biome biome,
+                            boolean initial) {
+    }
+
+    private record Transition(@NotNull Player player, @NotNull Location from, @NotNull Location to,
+                              long @Nullable [] regionIds, boolean biomeChanged) {
+    }
+
+    private static final class State {
+        private final @NotNull Player player;
+        private @NotNull Location location;
+        private long @NotNull [] regionIds;
+        private @NotNull Biome biome;
+
+        private State(@NotNull Player player, @NotNull Location location, long @NotNull [] regionIds, @NotNull Biome biome) {
+            this.player = player;
+            this.location = location;
+            this.regionIds = regionIds;
+            this.biome = biome;
+        }
+    }
+}
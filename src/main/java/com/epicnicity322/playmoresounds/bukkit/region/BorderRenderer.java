@@ -0,0 +1,207 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.region;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.config.Configurations;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Particle;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Shows the border particles of regions to players through a single task.
+ * <p>
+ * Only the border points close to the viewer are shown. These points are calculated asynchronously from the viewer's
+ * location from time to time, and the task sends them in parts every tick, so no more than
+ * "Sound Regions.Border.Max Particles Per Tick" particles are sent to a viewer in a tick.
+ */
+public final class BorderRenderer {
+    /**
+     * Ticks between each calculation of the border points close to the viewer.
+     */
+    private static final long REFRESH_INTERVAL = 20;
+    /**
+     * Ticks for every border point to be shown once, if the amount of points is within the particles per tick limit.
+     */
+    private static final int SHOW_INTERVAL = 5;
+    private static final double @NotNull [] NO_POINTS = new double[0];
+    private static final @NotNull ArrayList<BorderView> views = new ArrayList<>();
+    private static @Nullable BukkitTask task;
+    private static long tick = 0;
+
+    static {
+        PlayMoreSounds.onDisable(BorderRenderer::clear);
+    }
+
+    private BorderRenderer() {
+    }
+
+    /**
+     * Shows the border of a region to a player, according to the "Sound Regions.Border" settings in config.
+     *
+     * @param player The player to show the border.
+     * @param region The region to show the border.
+     * @param count  The count of the note particles. Use 0 for the color to be used.
+     * @param r      The red value of the note particles.
+     * @param g      The green value of the note particles.
+     * @param b      The blue value of the note particles.
+     * @return Whether the border is shown, false if "Sound Regions.Border.Max Showing Borders" was reached.
+     */
+    public static boolean show(@NotNull Player player, @NotNull SoundRegion region, int count, double r, double g, double b) {
+        var plugin = PlayMoreSounds.getInstance();
+        if (plugin == null) throw new IllegalStateException("PlayMoreSounds is not loaded.");
+
+        var config = Configurations.CONFIG.getConfigurationHolder().getConfiguration();
+
+        if (views.size() >= config.getNumber("Sound Regions.Border.Max Showing Borders").orElse(10).intValue())
+            return false;
+
+        var view = new BorderView(player, region, count, r, g, b,
+                tick + config.getNumber("Sound Regions.Border.Showing Time").orElse(140).longValue(),
+                Math.max(1, config.getNumber("Sound Regions.Border.Stride").orElse(1).intValue()),
+                config.getNumber("Sound Regions.Border.Render Distance").orElse(32).doubleValue(),
+                Math.max(1, config.getNumber("Sound Regions.Border.Max Particles Per Tick").orElse(200).intValue()));
+
+        views.add(view);
+        if (task == null) task = Bukkit.getScheduler().runTaskTimer(plugin, BorderRenderer::tick, 0, 1);
+        return true;
+    }
+
+    private static void tick() {
+        long currentTick = tick++;
+        HashMap<UUID, Integer> sentThisTick = new HashMap<>();
+
+        views.removeIf(view -> {
+            Player player = view.player;
+            if (currentTick >= view.expiresAt || !player.isOnline()) return true;
+
+            if (currentTick >= view.nextRefresh && !view.computing) {
+                view.computing = true;
+                view.nextRefresh = currentTick + REFRESH_INTERVAL;
+
+                Location viewer = player.getLocation();
+                double distance = Math.min(view.distance, player.getClientViewDistance() * 16d);
+
+                Bukkit.getScheduler().runTaskAsynchronously(PlayMoreSounds.getInstance(), () -> {
+                    try {
+                        view.points = computePoints(view.region, viewer, view.stride, distance);
+                    } finally {
+                        view.computing = false;
+                    }
+                });
+            }
+
+            double[] points = view.points;
+            if (points.length == 0 || !player.getWorld().equals(view.region.getMinDiagonal().getWorld())) return false;
+
+            int sent = sentThisTick.getOrDefault(player.getUniqueId(), 0);
+            int pointCount = points.length / 3;
+            int toSend = Math.min(view.maxPerTick - sent, (pointCount + SHOW_INTERVAL - 1) / SHOW_INTERVAL);
+            if (toSend <= 0) return false;
+
+            int cursor = view.cursor % points.length;
+
+            for (int i = 0; i < toSend; ++i) {
+                player.spawnParticle(Particle.NOTE, points[cursor], points[cursor + 1], points[cursor + 2], view.count, view.r, view.g, view.b);
+                cursor = (cursor + 3) % points.length;
+            }
+
+            view.cursor = cursor;
+            sentThisTick.put(player.getUniqueId(), sent + toSend);
+            return false;
+        });
+
+        if (views.isEmpty()) clear();
+    }
+
+    private static double @NotNull [] computePoints(@NotNull SoundRegion region, @NotNull Location viewer, int stride, double distance) {
+        if (!viewer.getWorld().equals(region.getMinDiagonal().getWorld())) return NO_POINTS;
+
+        double distanceSquared = distance * distance;
+        double[] points = new double[96];
+        int size = 0;
+
+        for (Location border : region.getBorder(stride)) {
+            if (border.distanceSquared(viewer) > distanceSquared) continue;
+            if (size + 3 > points.length) points = Arrays.copyOf(points, points.length << 1);
+
+            points[size++] = border.getX();
+            points[size++] = border.getY();
+            points[size++] = border.getZ();
+        }
+
+        return size == 0 ? NO_POINTS : Arrays.copyOf(points, size);
+    }
+
+    /**
+     * @return The amount of borders being shown.
+     */
+    public static int getShowingBorders() {
+        return views.size();
+    }
+
+    /**
+     * Stops showing all borders.
+     */
+    public static void clear() {
+        views.clear();
+        if (task != null) task.cancel();
+        task = null;
+    }
+
+    private static final class BorderView {
+        private final @NotNull Player player;
+        private final @NotNull SoundRegion region;
+        private final int count;
+        private final double r;
+        private final double g;
+        private final double b;
+        private final long expiresAt;
+        private final int stride;
+        private final double distance;
+        private final int maxPerTick;
+        private volatile double @NotNull [] points = NO_POINTS;
+        private volatile boolean computing = false;
+        private long nextRefresh = 0;
+        private int cursor = 0;
+
+        private BorderView(@NotNull Player player, @NotNull SoundRegion region, int count, double r, double g, double b,
+                           long expiresAt, int stride, double distance, int maxPerTick) {
+            this.player = player;
+            this.region = region;
+            this.count = count;
+            this.r = r;
+            this.g = g;
+            this.b = b;
+            this.expiresAt = expiresAt;
+            this.stride = stride;
+            this.distance = distance;
+            this.maxPerTick = maxPerTick;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.region;
+
+import com.epicnicity322.playmoresounds.core.util.LongLongHashMap;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * An immutable snapshot of the sound regions, indexed by world and chunk, so the regions at a location can be found by
+ * checking only the regions that share the location's chunk.
+ * <p>
+ * Regions covering more than {@link #MAX_INDEXED_CHUNKS} chunks are not split in cells, instead they are candidates of
+ * every chunk of their world, so huge regions don't take a lot of memory.
+ * <p>
+ * The bounds of every region are copied when the snapshot is made, because the diagonals of a region can be changed in
+ * the main thread while other threads read them. {@link #getRegionIdsAt(Location)} only uses the copied bounds, so it
+ * can be called from any thread.
+ */
+final class RegionIndex {
+    static final long @NotNull [] NO_REGIONS = new long[0];
+    static final @NotNull RegionIndex EMPTY = new RegionIndex(Collections.emptyList());
+    private static final int MAX_INDEXED_CHUNKS = 4096;
+    private final @NotNull HashMap<UUID, WorldIndex> worlds = new HashMap<>();
+    private final @NotNull HashMap<UUID, SoundRegion> regionsById = new HashMap<>();
+    private final @NotNull Set<SoundRegion> regions;
+
+    RegionIndex(@NotNull Collection<SoundRegion> regions) {
+        this.regions = Collections.unmodifiableSet(new LinkedHashSet<>(regions));
+        var builders = new HashMap<UUID, WorldIndexBuilder>();
+
+        for (SoundRegion region : regions) {
+            regionsById.put(region.getId(), region);
+
+            Location min = region.getMinDiagonal();
+            Location max = region.getMaxDiagonal();
+            World world = min.getWorld();
+            if (world == null) continue;
+
+            builders.computeIfAbsent(world.getUID(), k -> new WorldIndexBuilder())
+                    .add(new Bounds(region, min.getBlockX(), min.getBlockY(), min.getBlockZ(), max.getBlockX(), max.getBlockY(), max.getBlockZ()));
+        }
+
+        builders.forEach((world, builder) -> worlds.put(world, builder.build()));
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param location The location to get the candidate regions.
+     * @return The regions that may contain this location, the regions must still be checked with
+     * {@link SoundRegion#isInside(Location)}.
+     */
+    @NotNull List<SoundRegion> getCandidates(@NotNull Location location) {
+        Cell cell = getCell(location);
+        return cell == null ? Collections.emptyList() : cell.regions;
+    }
+
+    /**
+     * Gets the ids of the regions at a location, checked with the bounds the regions had when this snapshot was made.
+     *
+     * @param location The location to get the region ids.
+     * @return The most and least significant bits of the ids of the regions at this location. Must not be modified.
+     */
+    long @NotNull [] getRegionIdsAt(@NotNull Location location) {
+        Cell cell = getCell(location);
+        if (cell == null) return NO_REGIONS;
+
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        int count = 0;
+
+        for (Bounds bounds : cell.bounds) if (bounds.contains(x, y, z)) ++count;
+        if (count == 0) return NO_REGIONS;
+
+        long[] ids = new long[count * 2];
+        int i = 0;
+
+        for (Bounds bounds : cell.bounds) {
+            if (!bounds.contains(x, y, z)) continue;
+            ids[i++] = bounds.region.getId().getMostSignificantBits();
+            ids[i++] = bounds.region.getId().getLeastSignificantBits();
+        }
+
+        return ids;
+    }
+
+    /**
+     * Checks if the regions are the same in every block of the 16x16x16 section of a location, that is, every region in
+     * the location's chunk either contains the whole section or none of it.
+     *
+     * @param location The location in the section to check.
+     * @return Whether no region has a face crossing the section.
+     */
+    boolean isUniformSection(@NotNull Location location) {
+        Cell cell = getCell(location);
+        if (cell == null) return true;
+
+        int minX = location.getBlockX() & ~15;
+        int minY = location.getBlockY() & ~15;
+        int minZ = location.getBlockZ() & ~15;
+
+        for (Bounds bounds : cell.bounds) {
+            boolean intersects = bounds.minX <= minX + 15 && bounds.maxX >= minX && bounds.minY <= minY + 15
+                    && bounds.maxY >= minY && bounds.minZ <= minZ + 15 && bounds.maxZ >= minZ;
+            if (!intersects) continue;
+
+            boolean contains = bounds.minX <= minX && bounds.maxX >= minX + 15 && bounds.minY <= minY
+                    && bounds.maxY >= minY + 15 && bounds.minZ <= minZ && bounds.maxZ >= minZ + 15;
+            if (!contains) return false;
+        }
+
+        return true;
+    }
+
+    private @Nullable Cell getCell(@NotNull Location location) {
+        World world = location.getWorld();
+        if (world == null) return null;
+
+        WorldIndex worldIndex = worlds.get(world.getUID());
+        if (worldIndex == null) return null;
+
+        int cell = (int) worldIndex.cellIndexes.get(chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4), -1);
+        return cell == -1 ? worldIndex.large : worldIndex.cells.get(cell);
+    }
+
+    /**
+     * @return All the regions in this snapshot.
+     */
+    @NotNull Set<SoundRegion> getRegions() {
+        return regions;
+    }
+
+    /**
+     * @param id The id of the region.
+     * @return The region with this id, or null if not found.
+     */
+    @Nullable SoundRegion getRegion(@NotNull UUID id) {
+        return regionsById.get(id);
+    }
+
+    /**
+     * @param world The world to get the regions.
+     * @return All the regions in this world.
+     */
+    @NotNull List<SoundRegion> getRegions(@NotNull World world) {
+        WorldIndex worldIndex = worlds.get(world.getUID());
+        return worldIndex == null ? Collections.emptyList() : worldIndex.all;
+    }
+
+    private record WorldIndex(@NotNull LongLongHashMap cellIndexes, @NotNull List<Cell> cells, @NotNull Cell large,
+                              @NotNull List<SoundRegion> all) {
+    }
+
+    /**
+     * The candidate regions of a chunk, and their bounds in the same order.
+     */
+    private record Cell(@NotNull List<SoundRegion> regions, @NotNull Bounds @NotNull [] bounds) {
+        private static @NotNull Cell of(@NotNull List<Bounds> bounds) {
+            var regions = new ArrayList<SoundRegion>(bounds.size());
+            for (Bounds regionBounds : bounds) regions.add(regionBounds.region);
+            return new Cell(List.copyOf(regions), bounds.toArray(new Bounds[0]));
+        }
+    }
+
+    /**
+     * The block coordinates of the diagonals of a region when the snapshot was made.
+     */
+    private record Bounds(@NotNull SoundRegion region, int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        private boolean contains(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ;
+        }
+    }
+
+    private static final class WorldIndexBuilder {
+        private final @NotNull HashMap<Long, ArrayList<Bounds>> cells = new HashMap<>();
+        private final @NotNull ArrayList<Bounds> large = new ArrayList<>();
+        private final @NotNull ArrayList<SoundRegion> all = new ArrayList<>();
+
+        private void add(@NotNull Bounds bounds) {
+            all.add(bounds.region);
+
+            int minChunkX = bounds.minX >> 4;
+            int minChunkZ = bounds.minZ >> 4;
+            int maxChunkX = bounds.maxX >> 4;
+            int maxChunkZ = bounds.maxZ >> 4;
+
+            if ((long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1) > MAX_INDEXED_CHUNKS) {
+                large.add(bounds);
+                return;
+            }
+
+            for (int x = minChunkX; x <= maxChunkX; ++x)
+                for (int z = minChunkZ; z <= maxChunkZ; ++z)
+                    cells.computeIfAbsent(chunkKey(x, z), k -> new ArrayList<>(2)).add(bounds);
+        }
+
+        private @NotNull WorldIndex build() {
+            var cellIndexes = new LongLongHashMap(cells.size());
+            var cellList = new ArrayList<Cell>(cells.size());
+
+            for (Map.Entry<Long, ArrayList<Bounds>> cell : cells.entrySet()) {
+                // Large regions are candidates of all chunks, so they are added to every cell.
+                cell.getValue().addAll(large);
+                cellIndexes.put(cell.getKey(), cellList.size());
+                cellList.add(Cell.of(cell.getValue()));
+            }
+
+            return new WorldIndex(cellIndexes, cellList, Cell.of(large), List.copyOf(all));
+        }
+    }
+}
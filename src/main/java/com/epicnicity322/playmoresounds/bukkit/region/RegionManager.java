@@ -25,10 +25,12 @@ import com.epicnicity322.playmoresounds.core.config.Configurations;
 import com.epicnicity322.yamlhandler.Configuration;
 import com.epicnicity322.yamlhandler.ConfigurationSection;
 import com.epicnicity322.yamlhandler.YamlConfigurationLoader;
+import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.enchantments.Enchantment;
+import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitRunnable;
@@ -36,12 +38,13 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.CRC32;
 
 @SuppressWarnings("deprecation")
 public final class RegionManager {
@@ -54,11 +57,34 @@ public final class RegionManager {
      */
     static final @NotNull Set<String> regionsToRemove = ConcurrentHashMap.newKeySet();
     private static final @NotNull Path regionsFolder = PlayMoreSoundsCore.getFolder().resolve("Data").resolve("Regions");
-    private static final @NotNull HashSet<SoundRegion> regions = new HashSet<>();
-    private static final @NotNull Set<SoundRegion> unmodifiableRegions = Collections.unmodifiableSet(regions);
+    private static final @NotNull Path storeFile = PlayMoreSoundsCore.getFolder().resolve("Data").resolve("regions.dat");
+    private static final @NotNull Object saveLock = new Object();
+    /**
+     * The regions by their id, used only to build new snapshots, and only while synchronized on this map.
+     */
+    private static final @NotNull LinkedHashMap<UUID, SoundRegion> regions = new LinkedHashMap<>();
     private static final @NotNull Runnable wandUpdater;
+    /**
+     * The current immutable snapshot of the regions, replaced as a whole every time regions change, so readers in any
+     * thread never see a region set that is being changed.
+     */
+    private static final @NotNull AtomicReference<RegionIndex> snapshot = new AtomicReference<>(RegionIndex.EMPTY);
     private static ItemStack wand;
     private static @Nullable BukkitRunnable autoSaver;
+    /**
+     * The binary region store, if "Sound Regions.Storage" is BINARY and the store was loaded.
+     */
+    private static @Nullable RegionStore store;
+    /**
+     * The hashes of the region files when they were last read or saved, so only changed files are read again.
+     */
+    private static final @NotNull HashMap<String, Long> fileHashes = new HashMap<>();
+    /**
+     * The ids of region files that could not be loaded, for example because their world was not loaded yet. These are
+     * read again on every update, even if the watch service did not see them change.
+     */
+    private static final @NotNull HashSet<String> failedFiles = new HashSet<>();
+    private static @Nullable WatchService watchService;
 
     static {
         wandUpdater = () -> {
@@ -87,6 +113,11 @@ public final class RegionManager {
         };
         wandUpdater.run();
 
+        PlayMoreSounds.onDisable(() -> {
+            synchronized (saveLock) {
+                closeWatchService();
+            }
+        });
     }
 
     private RegionManager() {
@@ -95,11 +126,14 @@ public final class RegionManager {
     /**
      * Gets all regions saved in PlayMoreSounds' data folder based on the last time PlayMoreSounds was enabled or reloaded
      * by {@link PlayMoreSounds#reload()}.
+     * <p>
+     * The set is a snapshot of the regions at the time this method was called, it does not change when regions are
+     * added or removed, so it can be iterated safely from any thread.
      *
-     * @return An unmodifiable set of PlayMoreSounds' regions.
+     * @return An immutable set of PlayMoreSounds' regions.
      */
     public static @NotNull Set<SoundRegion> getRegions() {
-        return unmodifiableRegions;
+        return snapshot.get().getRegions();
     }
 
     /**
@@ -109,7 +143,76 @@ public final class RegionManager {
      * @return The regions in this location.
      */
     public static @NotNull Set<SoundRegion> getRegionsAt(@NotNull Location location) {
-        return regions.stream().filter(region -> region.isInside(location)).collect(Collectors.toSet());
+        var regionsAt = new HashSet<SoundRegion>();
+
+        for (SoundRegion region : snapshot.get().getCandidates(location)) {
+            if (region.isInside(location)) regionsAt.add(region);
+        }
+
+        return regionsAt;
+    }
+
+    /**
+     * Gets the region with the specified id.
+     *
+     * @param id The id of the region.
+     * @return The region with this id, or null if there's no region with this id.
+     */
+    public static @Nullable SoundRegion getRegion(@NotNull UUID id) {
+        return snapshot.get().getRegion(id);
+    }
+
+    /**
+     * Gets the regions that may be in this location, without creating a new collection. These are the regions in the
+     * same chunk as the location, so they must still be checked with {@link SoundRegion#isInside(Location)}.
+     *
+     * @param location The location to get the regions nearby.
+     * @return An immutable list of regions that may be in this location.
+     */
+    public static @NotNull List<SoundRegion> getRegionsNear(@NotNull Location location) {
+        return snapshot.get().getCandidates(location);
+    }
+
+    /**
+     * Gets the ids of the regions at a location, checked with the bounds the regions had when the current snapshot was
+     * published, so this can be called from any thread.
+     *
+     * @param location The location to get the region ids.
+     * @return The most and least significant bits of the ids of the regions at this location. Must not be modified.
+     */
+    static long @NotNull [] getRegionIdsAt(@NotNull Location location) {
+        return snapshot.get().getRegionIdsAt(location);
+    }
+
+    /**
+     * @return The current immutable snapshot of the regions.
+     */
+    static @NotNull RegionIndex getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Gets all regions that have at least one block inside the area between the two diagonals.
+     *
+     * @param min The location with the lowest coordinates of the area.
+     * @param max The location with the highest coordinates of the area.
+     * @return The regions intersecting this area.
+     */
+    public static @NotNull Set<SoundRegion> getRegionsIntersecting(@NotNull Location min, @NotNull Location max) {
+        var intersecting = new HashSet<SoundRegion>();
+        if (max.getWorld() == null) return intersecting;
+
+        for (SoundRegion region : snapshot.get().getRegions(max.getWorld())) {
+            Location otherMin = region.getMinDiagonal();
+            Location otherMax = region.getMaxDiagonal();
+
+            if (min.getBlockX() <= otherMax.getBlockX() && max.getBlockX() >= otherMin.getBlockX()
+                    && min.getBlockY() <= otherMax.getBlockY() && max.getBlockY() >= otherMin.getBlockY()
+                    && min.getBlockZ() <= otherMax.getBlockZ() && max.getBlockZ() >= otherMin.getBlockZ())
+                intersecting.add(region);
+        }
+
+        return intersecting;
     }
 
     /**
@@ -119,7 +222,7 @@ public final class RegionManager {
      * @return The regions made by this creator.
      */
     public static @NotNull Set<SoundRegion> getRegionsOf(@Nullable UUID creator) {
-        return regions.stream().filter(region -> Objects.equals(region.getCreator(), creator)).collect(Collectors.toSet());
+        return getRegions().stream().filter(region -> Objects.equals(region.getCreator(), creator)).collect(Collectors.toSet());
     }
 
     /**
@@ -139,7 +242,10 @@ public final class RegionManager {
      */
     public static void add(@NotNull SoundRegion region) {
         region.autoSave = true;
-        regions.add(region);
+        synchronized (regions) {
+            regions.put(region.getId(), region);
+            publish();
+        }
         regionsToRemove.remove(region.getId().toString());
         regionsToSave.add(region.getId().toString());
         loadAutoSave();
@@ -153,7 +259,10 @@ public final class RegionManager {
      */
     public static void remove(@NotNull SoundRegion region) {
         region.autoSave = false;
-        regions.remove(region);
+        synchronized (regions) {
+            regions.remove(region.getId());
+            publish();
+        }
         regionsToSave.remove(region.getId().toString());
         regionsToRemove.add(region.getId().toString());
         loadAutoSave();
@@ -162,74 +271,355 @@ public final class RegionManager {
     /**
      * Saves and removes regions that were scheduled in {@link #add(SoundRegion)} and {@link #remove(SoundRegion)} methods.
      * Then, it updates {@link #getRegions()} set with new {@link SoundRegion} instances based on the saved region files.
+     * <p>
+     * If "Sound Regions.Storage" is BINARY, regions are only loaded from the store the first time, and after that only
+     * the scheduled regions are written. Regions in YAML files are migrated to the store, and exported back to YAML
+     * files if the storage is changed to YAML.
      */
     public static void saveAndUpdate() {
+        boolean binary = Configurations.CONFIG.getConfigurationHolder().getConfiguration().getString("Sound Regions.Storage").orElse("YAML").equalsIgnoreCase("BINARY");
+
+        synchronized (saveLock) {
+            if (binary) {
+                if (store == null) loadStore();
+                else saveToStore(store);
+            } else {
+                if (store != null || Files.exists(storeFile)) exportStore();
+                saveAndUpdateYaml();
+            }
+        }
+    }
+
+    private static void saveAndUpdateYaml() {
         var logger = PlayMoreSounds.getConsoleLogger();
 
+        // Taking the scheduled regions, so regions scheduled while saving are left for the next save.
+        var toSave = new HashSet<>(regionsToSave);
+        var toRemove = new HashSet<>(regionsToRemove);
+
+        regionsToRemove.removeAll(toRemove);
+
         // Deleting regions scheduled to be removed.
-        for (String id : regionsToRemove) {
+        for (String id : toRemove) {
             try {
                 Files.deleteIfExists(regionsFolder.resolve(id + ".yml"));
+                fileHashes.remove(id);
+                failedFiles.remove(id);
             } catch (Exception e) {
                 logger.log("Something went wrong while deleting region '" + id + "'.", ConsoleLogger.Level.ERROR);
                 e.printStackTrace();
             }
         }
-        regionsToRemove.clear();
 
-        // Saving scheduled regions, and removing remaining regions in order to update them.
-        regions.removeIf(region -> {
+        // Saving scheduled regions.
+        for (SoundRegion region : getRegions()) {
             String id = region.getId().toString();
+            if (!toSave.contains(id)) continue;
+
+            try {
+                save(region);
+                fileHashes.put(id, hash(regionsFolder.resolve(id + ".yml")));
+            } catch (Exception e) {
+                logger.log("Something went wrong while saving region '" + id + "'.", ConsoleLogger.Level.ERROR);
+                e.printStackTrace();
+                // Removing so it can attempt to load from last save, on the code below.
+                toSave.remove(id);
+                fileHashes.remove(id);
+            }
+        }
+
+        // Regions files may change, for example: console might want to edit region sounds. So, region files that changed
+        //since the last time they were read must be read again. Instances of unchanged regions are kept.
+        Set<String> changed = pollChangedFiles();
+
+        if (changed == null) {
+            // Every file must be checked, including the ones that were deleted.
+            var allFiles = new HashSet<>(fileHashes.keySet());
+            changed = allFiles;
+
+            if (Files.exists(regionsFolder)) {
+                try (Stream<Path> regionFiles = Files.list(regionsFolder)) {
+                    regionFiles.map(regionFile -> regionFile.getFileName().toString()).filter(name -> name.endsWith(".yml"))
+                            .forEach(name -> allFiles.add(name.substring(0, name.lastIndexOf("."))));
+                } catch (Exception e) {
+                    PlayMoreSounds.getConsoleLogger().log("Unable to read regions in Data/Regions folder.", ConsoleLogger.Level.ERROR);
+                    PlayMoreSoundsCore.getErrorHandler().report(e, "Region Read Exception:");
+                }
+            }
+        } else {
+            // Files that failed to load may load now, even though they did not change.
+            changed.addAll(failedFiles);
+        }
+
+        var loader = new YamlConfigurationLoader();
+        var loaded = new ArrayList<SoundRegion>();
+        var deleted = new ArrayList<UUID>();
+
+        for (String id : changed) {
+            // Don't want to re-add sound regions that were just saved.
+            if (toSave.contains(id)) {
+                failedFiles.remove(id);
+                continue;
+            }
+
+            Path regionFile = regionsFolder.resolve(id + ".yml");
+            String name = regionFile.getFileName().toString();
+
+            try {
+                if (!Files.exists(regionFile)) {
+                    // Region file was deleted.
+                    if (fileHashes.remove(id) != null) deleted.add(UUID.fromString(id));
+                    failedFiles.remove(id);
+                    continue;
+                }
+
+                long hash = hash(regionFile);
+                Long previousHash = fileHashes.get(id);
+
+                if (previousHash != null && previousHash == hash) continue;
+
+                var region = new SoundRegion(loader.load(regionFile));
+                region.autoSave = true;
+                loaded.add(region);
+                fileHashes.put(id, hash);
+                failedFiles.remove(id);
+            } catch (Exception e) {
+                // Kept as failed, so this file is read again on next update even if it doesn't change.
+                failedFiles.add(id);
+                logger.log("Error while reading region file \"" + name + "\": " + e.getMessage(), ConsoleLogger.Level.WARN);
+                logger.log("This region could not be loaded.", ConsoleLogger.Level.WARN);
+                PlayMoreSoundsCore.getErrorHandler().report(e, "File: " + name + "\nRegion instantiate from file exception:");
+            }
+        }
+
+        regionsToSave.removeAll(toSave);
+
+        synchronized (regions) {
+            for (UUID id : deleted) regions.remove(id);
+            for (SoundRegion region : loaded) {
+                // Regions changed in-game while the files were read have priority over the files.
+                if (!regionsToSave.contains(region.getId().toString())) regions.put(region.getId(), region);
+            }
+            publish();
+        }
+
+        // Regions read from files may have different bounds.
+        if (!loaded.isEmpty()) refreshMemberships();
+    }
+
+    /**
+     * Gets the names of the region files that were created, changed or deleted since the last time this was called.
+     *
+     * @return The ids of the regions whose files changed, or null if all files must be checked.
+     */
+    private static @Nullable Set<String> pollChangedFiles() {
+        if (watchService == null) {
+            try {
+                Files.createDirectories(regionsFolder);
+                watchService = FileSystems.getDefault().newWatchService();
+                regionsFolder.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (Exception e) {
+                closeWatchService();
+            }
+            // Changes before the folder was watched are unknown.
+            return null;
+        }
+
+        var changed = new HashSet<String>();
+        WatchKey key;
+
+        while ((key = watchService.poll()) != null) {
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changed = null;
+                    continue;
+                }
+
+                String name = event.context().toString();
+                if (changed != null && name.endsWith(".yml")) changed.add(name.substring(0, name.lastIndexOf(".")));
+            }
+
+            if (!key.reset()) {
+                // Folder was deleted or moved.
+                closeWatchService();
+                return null;
+            }
+        }
 
-            if (regionsToSave.contains(id)) {
+        return changed;
+    }
+
+    private static void closeWatchService() {
+        if (watchService == null) return;
+
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+        }
+        watchService = null;
+    }
+
+    private static long hash(@NotNull Path file) throws IOException {
+        var crc = new CRC32();
+        byte[] bytes = Files.readAllBytes(file);
+
+        crc.update(bytes);
+        return ((long) bytes.length << 32) | crc.getValue();
+    }
+
+    private static void loadStore() {
+        var logger = PlayMoreSounds.getConsoleLogger();
+        var newStore = new RegionStore(storeFile);
+
+        // Regions changed before storage was changed to BINARY are saved to their YAML files first.
+        if (!regionsToSave.isEmpty() || !regionsToRemove.isEmpty()) saveAndUpdateYaml();
+
+        try {
+            // Migrating regions from YAML files.
+            if (!Files.exists(storeFile) && Files.exists(regionsFolder)) migrate(newStore);
+
+            LinkedHashMap<UUID, Configuration> data = newStore.load();
+            var loaded = new LinkedHashMap<UUID, SoundRegion>();
+
+            data.forEach((id, regionData) -> {
                 try {
-                    save(region);
-                    return false;
+                    var region = new SoundRegion(id, regionData);
+                    region.autoSave = true;
+                    loaded.put(id, region);
                 } catch (Exception e) {
-                    logger.log("Something went wrong while saving region '" + id + "'.", ConsoleLogger.Level.ERROR);
-                    e.printStackTrace();
-                    // Removing so it can attempt to load from last save, on the code below.
-                    regionsToSave.remove(id);
-                    return true;
+                    // The region is kept in the store, in case its world is loaded later.
+                    logger.log("Error while reading region \"" + id + "\" from " + storeFile.getFileName() + ": " + e.getMessage(), ConsoleLogger.Level.WARN);
+                    logger.log("This region could not be loaded.", ConsoleLogger.Level.WARN);
                 }
+            });
+
+            synchronized (regions) {
+                regions.clear();
+                regions.putAll(loaded);
+                publish();
+            }
+            store = newStore;
+        } catch (Exception e) {
+            logger.log("Unable to read regions in " + storeFile.getFileName() + " file.", ConsoleLogger.Level.ERROR);
+            PlayMoreSoundsCore.getErrorHandler().report(e, "Region Store Read Exception:");
+        }
+    }
+
+    private static void migrate(@NotNull RegionStore newStore) throws IOException {
+        var data = new LinkedHashMap<UUID, Configuration>();
+        var loader = new YamlConfigurationLoader();
+
+        try (Stream<Path> regionFiles = Files.list(regionsFolder)) {
+            for (Path regionFile : (Iterable<Path>) regionFiles::iterator) {
+                String name = regionFile.getFileName().toString();
+                if (!name.endsWith(".yml")) continue;
+
+                try {
+                    data.put(UUID.fromString(name.substring(0, name.lastIndexOf("."))), loader.load(regionFile));
+                } catch (Exception e) {
+                    PlayMoreSounds.getConsoleLogger().log("Region file \"" + name + "\" could not be migrated: " + e.getMessage(), ConsoleLogger.Level.WARN);
+                }
+            }
+        }
+
+        newStore.write(data, Collections.emptyList());
+
+        Path backup = regionsFolder.resolveSibling("Regions-" + System.currentTimeMillis());
+        Files.move(regionsFolder, backup);
+        PlayMoreSounds.getConsoleLogger().log("Migrated " + data.size() + " regions to " + storeFile.getFileName() + ". The old region files were moved to " + backup.getFileName() + " folder.");
+    }
+
+    private static void saveToStore(@NotNull RegionStore store) {
+        var toSave = new HashSet<>(regionsToSave);
+        var toRemove = new HashSet<>(regionsToRemove);
+
+        regionsToSave.removeAll(toSave);
+        regionsToRemove.removeAll(toRemove);
+
+        var changed = new HashMap<UUID, Configuration>();
+        var removed = new ArrayList<UUID>(toRemove.size());
+
+        for (SoundRegion region : getRegions()) {
+            if (toSave.contains(region.getId().toString())) changed.put(region.getId(), toConfiguration(region));
+        }
+        for (String id : toRemove) removed.add(UUID.fromString(id));
+
+        try {
+            store.write(changed, removed);
+        } catch (Exception e) {
+            // Scheduling to try again on next save.
+            regionsToSave.addAll(toSave);
+            regionsToRemove.addAll(toRemove);
+            PlayMoreSounds.getConsoleLogger().log("Something went wrong while saving regions to " + storeFile.getFileName() + ".", ConsoleLogger.Level.ERROR);
+            PlayMoreSoundsCore.getErrorHandler().report(e, "Region Store Save Exception:");
+        }
+    }
+
+    private static void exportStore() {
+        var logger = PlayMoreSounds.getConsoleLogger();
+
+        try {
+            RegionStore exporting = store;
+
+            if (exporting == null) {
+                exporting = new RegionStore(storeFile);
+                exporting.load();
             } else {
-                return true;
+                saveToStore(exporting);
             }
-        });
 
-        // Updating instances of regions that weren't just saved. Regions files may change, for example: console might
-        //want to edit region sounds. So, all instances of regions must be updated in case the files changed.
-        if (Files.exists(regionsFolder)) {
-            try (Stream<Path> regionFiles = Files.list(regionsFolder)) {
-                var loader = new YamlConfigurationLoader();
-
-                regionFiles.filter(regionFile -> regionFile.getFileName().toString().endsWith(".yml")).forEach(regionFile -> {
-                    String name = regionFile.getFileName().toString();
-
-                    // Don't want to re-add sound regions that were just saved.
-                    if (regionsToSave.contains(name.substring(0, name.lastIndexOf(".")))) return;
-
-                    try {
-                        var region = new SoundRegion(loader.load(regionFile));
-                        region.autoSave = true;
-                        regions.add(region);
-                    } catch (Exception e) {
-                        logger.log("Error while reading region file \"" + name + "\": " + e.getMessage(), ConsoleLogger.Level.WARN);
-                        logger.log("This region could not be loaded.", ConsoleLogger.Level.WARN);
-                        PlayMoreSoundsCore.getErrorHandler().report(e, "File: " + name + "\nRegion instantiate from file exception:");
-                    }
-                });
-            } catch (Exception e) {
-                PlayMoreSounds.getConsoleLogger().log("Unable to read regions in Data/Regions folder.", ConsoleLogger.Level.ERROR);
-                PlayMoreSoundsCore.getErrorHandler().report(e, "Region Read Exception:");
+            LinkedHashMap<UUID, Configuration> data = exporting.getAll();
+
+            Files.createDirectories(regionsFolder);
+            for (Map.Entry<UUID, Configuration> region : data.entrySet()) {
+                region.getValue().save(regionsFolder.resolve(region.getKey() + ".yml"));
             }
+
+            Files.move(storeFile, storeFile.resolveSibling(storeFile.getFileName() + ".exported"), StandardCopyOption.REPLACE_EXISTING);
+            store = null;
+            logger.log("Exported " + data.size() + " regions from " + storeFile.getFileName() + " to Data/Regions folder.");
+        } catch (Exception e) {
+            logger.log("Unable to export regions in " + storeFile.getFileName() + " to YAML files.", ConsoleLogger.Level.ERROR);
+            PlayMoreSoundsCore.getErrorHandler().report(e, "Region Store Export Exception:");
         }
+    }
 
-        regionsToSave.clear();
+    /**
+     * Publishes a new snapshot of the regions, so the index of regions by chunk used by {@link #getRegionsAt(Location)}
+     * is rebuilt, and the regions of online players are updated. This must be called every time a region has its
+     * diagonals changed.
+     */
+    static void updateIndex() {
+        synchronized (regions) {
+            publish();
+        }
+        refreshMemberships();
+    }
+
+    /**
+     * Updates the regions online players are in, so players who are not moving enter and leave regions that were
+     * resized or moved around them.
+     */
+    private static void refreshMemberships() {
+        if (!Bukkit.isPrimaryThread()) {
+            PlayMoreSounds instance = PlayMoreSounds.getInstance();
+            if (instance != null) Bukkit.getScheduler().runTask(instance, RegionManager::refreshMemberships);
+            return;
+        }
+
+        for (Player player : Bukkit.getOnlinePlayers()) RegionMembership.refresh(player);
+    }
+
+    private static void publish() {
+        snapshot.set(new RegionIndex(regions.values()));
     }
 
     private static void save(@NotNull SoundRegion region) throws IOException {
         Files.deleteIfExists(regionsFolder.resolve(region.getId() + ".yml"));
+        toConfiguration(region).save(regionsFolder.resolve(region.getId() + ".yml"));
+    }
+
+    private static @NotNull Configuration toConfiguration(@NotNull SoundRegion region) {
         Configuration data = new Configuration(new YamlConfigurationLoader());
 
         data.set("Name", region.getName());
@@ -257,7 +647,7 @@ public final class RegionManager {
         if (region.getLeaveSound() != null) copySettings(region.getLeaveSound().getSection(), data);
         if (region.getLoopSound() != null) copySettings(region.getLoopSound().getSection(), data);
 
-        data.save(regionsFolder.resolve(region.getId() + ".yml"));
+        return data;
     }
 
     private static void copySettings(ConfigurationSection section1, ConfigurationSection section2) {
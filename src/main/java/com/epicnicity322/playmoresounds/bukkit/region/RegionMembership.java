@@ -0,0 +1,306 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.region;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.bukkit.region.events.RegionEnterEvent;
+import com.epicnicity322.playmoresounds.bukkit.region.events.RegionLeaveEvent;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keeps track of the regions each player is in, so region enter and leave events are the difference between the
+ * regions the player was in and the regions of the location they moved to, and checking if a player is in a region
+ * doesn't need to look at the region's bounds.
+ * <p>
+ * The region ids of each player are kept in a small array of longs, two for each id. While a player moves inside a
+ * 16x16x16 section that no region face crosses, their regions can't change, so they are not computed again until the
+ * player leaves the section. Memberships are only used on the main thread.
+ */
+public final class RegionMembership {
+    private static final @NotNull HashMap<UUID, Membership> memberships = new HashMap<>();
+
+    static {
+        PlayMoreSounds.onDisable(memberships::clear);
+    }
+
+    private RegionMembership() {
+    }
+
+    /**
+     * Updates the regions the player is in, calling {@link RegionLeaveEvent} for every region the player left and
+     * {@link RegionEnterEvent} for every region the player entered. If any of these events are cancelled, the movement
+     * event is cancelled and the player keeps the regions of the from location.
+     *
+     * @param event  The event of the movement, to be cancelled in case region events are cancelled.
+     * @param player The player who moved.
+     * @param from   The location the player moved from.
+     * @param to     The location the player moved to.
+     */
+    public static void move(@Nullable Cancellable event, @NotNull Player player, @NotNull Location from, @NotNull Location to) {
+        UUID uuid = player.getUniqueId();
+        Membership current = memberships.get(uuid);
+
+        // The player might have moved without being tracked, so the regions of the from location are used instead.
+        if (current == null || !current.isAt(from)) {
+            current = new Membership(from, RegionManager.getRegionIdsAt(from));
+            memberships.put(uuid, current);
+        }
+
+        RegionIndex index = RegionManager.getSnapshot();
+
+        // No region has a face crossing this section, so the regions are the same in every block of it.
+        if (current.isInUniformSection(index, to)) {
+            current.setLocation(to);
+            return;
+        }
+
+        long[] next = index.getRegionIdsAt(to);
+
+        if (transition(player, current, from, to, next) && event != null) {
+            event.setCancelled(true);
+            // The player stays in the from location.
+            return;
+        }
+
+        current.ids = next;
+        current.setLocation(to);
+        current.setSection(index, to);
+    }
+
+    /**
+     * Updates the regions the player is in to regions computed by {@link #regionIdsAt(Location)}, calling
+     * {@link RegionLeaveEvent} and {@link RegionEnterEvent} for the difference. The movement can't be cancelled by
+     * these events anymore, so the player is always moved to the new regions.
+     *
+     * @param player The player who moved.
+     * @param from   The location the player moved from.
+     * @param to     The location the player moved to.
+     * @param ids    The ids of the regions at the to location.
+     */
+    public static void apply(@NotNull Player player, @NotNull Location from, @NotNull Location to, long @NotNull [] ids) {
+        Membership current = memberships.get(player.getUniqueId());
+
+        if (current == null) {
+            memberships.put(player.getUniqueId(), new Membership(to, ids));
+            return;
+        }
+
+        transition(player, current, from, to, ids);
+        current.ids = ids;
+        current.setLocation(to);
+        // The ids may be of another snapshot, so they are computed again on the next move.
+        current.sectionIndex = null;
+    }
+
+    /**
+     * Updates the regions of a player who might not have moved, because regions changed around them. Leave and enter
+     * events are called for the difference, and cancelling them has no effect.
+     *
+     * @param player The player to update.
+     */
+    public static void refresh(@NotNull Player player) {
+        Location location = player.getLocation();
+        apply(player, location, location, RegionManager.getRegionIdsAt(location));
+    }
+
+    /**
+     * Calls the leave and enter events of the regions that are different between the membership and the next ids.
+     *
+     * @return Whether any of the events were cancelled.
+     */
+    private static boolean transition(@NotNull Player player, @NotNull Membership current, @NotNull Location from,
+                                      @NotNull Location to, long @NotNull [] next) {
+        if (sameIds(current.ids, next)) return false;
+
+        var pluginManager = Bukkit.getPluginManager();
+        boolean cancelled = false;
+
+        for (int i = 0; i < current.ids.length; i += 2) {
+            if (contains(next, current.ids[i], current.ids[i + 1])) continue;
+
+            SoundRegion region = RegionManager.getRegion(new UUID(current.ids[i], current.ids[i + 1]));
+            // Region was removed.
+            if (region == null) continue;
+
+            var regionLeaveEvent = new RegionLeaveEvent(region, player, from, to);
+            pluginManager.callEvent(regionLeaveEvent);
+            if (regionLeaveEvent.isCancelled()) cancelled = true;
+        }
+
+        for (int i = 0; i < next.length; i += 2) {
+            if (contains(current.ids, next[i], next[i + 1])) continue;
+
+            SoundRegion region = RegionManager.getRegion(new UUID(next[i], next[i + 1]));
+            // Region was removed.
+            if (region == null) continue;
+
+            var regionEnterEvent = new RegionEnterEvent(region, player, from, to);
+            pluginManager.callEvent(regionEnterEvent);
+            if (regionEnterEvent.isCancelled()) cancelled = true;
+        }
+
+        return cancelled;
+    }
+
+    /**
+     * Starts tracking the regions of a player that just joined.
+     *
+     * @param player   The player to track.
+     * @param location The location of the player.
+     * @return The regions the player is in, for {@link RegionEnterEvent} to be called.
+     */
+    public static @NotNull List<SoundRegion> join(@NotNull Player player, @NotNull Location location) {
+        long[] ids = RegionManager.getRegionIdsAt(location);
+        var regions = new ArrayList<SoundRegion>(ids.length / 2);
+
+        for (int i = 0; i < ids.length; i += 2) {
+            SoundRegion region = RegionManager.getRegion(new UUID(ids[i], ids[i + 1]));
+            if (region != null) regions.add(region);
+        }
+
+        memberships.put(player.getUniqueId(), new Membership(location, ids));
+        return regions;
+    }
+
+    /**
+     * Stops tracking the regions of a player that is quitting.
+     *
+     * @param player The player to stop tracking.
+     * @return The regions the player was in, for {@link RegionLeaveEvent} to be called.
+     */
+    public static @NotNull List<SoundRegion> quit(@NotNull Player player) {
+        Membership membership = memberships.remove(player.getUniqueId());
+        var regions = new ArrayList<SoundRegion>();
+
+        if (membership == null || !membership.isAt(player.getLocation())) {
+            Location location = player.getLocation();
+            for (SoundRegion region : RegionManager.getRegionsNear(location))
+                if (region.isInside(location)) regions.add(region);
+            return regions;
+        }
+
+        for (int i = 0; i < membership.ids.length; i += 2) {
+            SoundRegion region = RegionManager.getRegion(new UUID(membership.ids[i], membership.ids[i + 1]));
+            if (region != null) regions.add(region);
+        }
+
+        return regions;
+    }
+
+    /**
+     * Checks if a player is in a region, as of the last time the player moved.
+     *
+     * @param player   The player to check.
+     * @param regionId The id of the region.
+     * @return Whether the player is in the region.
+     */
+    public static boolean isInside(@NotNull Player player, @NotNull UUID regionId) {
+        Membership membership = memberships.get(player.getUniqueId());
+        return membership != null && contains(membership.ids, regionId.getMostSignificantBits(), regionId.getLeastSignificantBits());
+    }
+
+    /**
+     * Gets the ids of the regions at a location, two longs for each id. This can be called from any thread, as
+     * regions are checked with the bounds copied to the immutable snapshot of {@link RegionManager}, not with the
+     * diagonals of the regions, which may be changed by the main thread.
+     *
+     * @param location The location to get the region ids.
+     * @return The most and least significant bits of the ids of the regions at this location. Must not be modified.
+     */
+    public static long @NotNull [] regionIdsAt(@NotNull Location location) {
+        return RegionManager.getRegionIdsAt(location);
+    }
+
+    private static boolean contains(long @NotNull [] ids, long most, long least) {
+        for (int i = 0; i < ids.length; i += 2) if (ids[i] == most && ids[i + 1] == least) return true;
+        return false;
+    }
+
+    private static boolean sameIds(long @NotNull [] ids1, long @NotNull [] ids2) {
+        if (ids1.length != ids2.length) return false;
+        for (int i = 0; i < ids1.length; i += 2) if (!contains(ids2, ids1[i], ids1[i + 1])) return false;
+        return true;
+    }
+
+    private static final class Membership {
+        private long @NotNull [] ids;
+        private @NotNull UUID world;
+        private int x;
+        private int y;
+        private int z;
+        /**
+         * The snapshot and the 16x16x16 section of the last time the regions were computed, and whether no region has
+         * a face crossing this section in that snapshot.
+         */
+        private @Nullable RegionIndex sectionIndex;
+        private @Nullable UUID sectionWorld;
+        private int sectionX;
+        private int sectionY;
+        private int sectionZ;
+        private boolean uniformSection;
+
+        private Membership(@NotNull Location location, long @NotNull [] ids) {
+            this.ids = ids;
+            this.world = location.getWorld().getUID();
+            setLocation(location);
+        }
+
+        private void setLocation(@NotNull Location location) {
+            world = location.getWorld().getUID();
+            x = location.getBlockX();
+            y = location.getBlockY();
+            z = location.getBlockZ();
+        }
+
+        private void setSection(@NotNull RegionIndex index, @NotNull Location location) {
+            if (isInSection(index, location)) return;
+
+            sectionIndex = index;
+            sectionWorld = location.getWorld().getUID();
+            sectionX = location.getBlockX() >> 4;
+            sectionY = location.getBlockY() >> 4;
+            sectionZ = location.getBlockZ() >> 4;
+            uniformSection = index.isUniformSection(location);
+        }
+
+        private boolean isInSection(@NotNull RegionIndex index, @NotNull Location location) {
+            return index == sectionIndex && sectionX == location.getBlockX() >> 4 && sectionY == location.getBlockY() >> 4
+                    && sectionZ == location.getBlockZ() >> 4 && location.getWorld().getUID().equals(sectionWorld);
+        }
+
+        private boolean isInUniformSection(@NotNull RegionIndex index, @NotNull Location location) {
+            return uniformSection && isInSection(index, location);
+        }
+
+        private boolean isAt(@NotNull Location location) {
+            return x == location.getBlockX() && y == location.getBlockY() && z == location.getBlockZ()
+                    && world.equals(location.getWorld().getUID());
+        }
+    }
+}
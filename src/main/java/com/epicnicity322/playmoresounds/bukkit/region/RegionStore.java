@@ -0,0 +1,329 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.region;
+
+import com.epicnicity322.yamlhandler.Configuration;
+import com.epicnicity322.yamlhandler.ConfigurationSection;
+import com.epicnicity322.yamlhandler.YamlConfigurationLoader;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the data of all regions in a single binary file, instead of one YAML file per region.
+ * <p>
+ * The file is a header followed by a log of records. Saving a region appends a record with its data, and removing a
+ * region appends a record with its id, so only changed regions are written. Every batch of records ends with a commit
+ * record, and every record has a checksum: if the server crashes while writing, the incomplete batch is discarded on
+ * load and the file is truncated back to the last commit. When the log has more old records than current regions, the
+ * file is compacted to a temporary file, which then atomically replaces the store.
+ * <p>
+ * The data of each region is the same as in its YAML file, as a list of absolute keys and values.
+ */
+final class RegionStore {
+    private static final int MAGIC = 0x504D5352; // PMSR
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte COMMIT = 3;
+    private static final byte TYPE_STRING = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_LIST = 5;
+    private final @NotNull Path file;
+    /**
+     * The data of all regions in the store, including regions that could not be loaded, for example because their world
+     * is not loaded, so they are kept when the store is compacted.
+     */
+    private final @NotNull HashMap<UUID, byte[]> records = new HashMap<>();
+    private int oldRecords = 0;
+
+    RegionStore(@NotNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads all regions in the store file.
+     *
+     * @return The data of the regions by their id.
+     * @throws IOException If the file could not be read or is not a region store.
+     */
+    synchronized @NotNull LinkedHashMap<UUID, Configuration> load() throws IOException {
+        records.clear();
+        oldRecords = 0;
+
+        if (!Files.exists(file)) return new LinkedHashMap<>();
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+            throw new IOException("File " + file.getFileName() + " is not a region store.");
+        if (buffer.getInt() != VERSION)
+            throw new IOException("Region store " + file.getFileName() + " was made by an unsupported version.");
+
+        var batch = new LinkedHashMap<UUID, byte[]>();
+        var crc = new CRC32();
+        int committed = buffer.position();
+
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt();
+            if (length < 1 || buffer.remaining() < length + 4) break;
+
+            byte[] body = new byte[length];
+            buffer.get(body);
+            crc.reset();
+            crc.update(body);
+            if ((int) crc.getValue() != buffer.getInt()) break;
+
+            if (body[0] == COMMIT) {
+                applyBatch(batch);
+                committed = buffer.position();
+                continue;
+            }
+            if (length < 17 || (body[0] != PUT && body[0] != REMOVE)) break;
+
+            var bodyBuffer = ByteBuffer.wrap(body, 1, length - 1);
+            var id = new UUID(bodyBuffer.getLong(), bodyBuffer.getLong());
+
+            // Null payloads are removed regions.
+            batch.put(id, body[0] == PUT ? Arrays.copyOfRange(body, 17, length) : null);
+        }
+
+        // Discarding records of a batch that was not completely written.
+        if (committed < buffer.limit()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(committed);
+                channel.force(true);
+            }
+        }
+
+        return getAll();
+    }
+
+    private void applyBatch(@NotNull LinkedHashMap<UUID, byte[]> batch) {
+        for (Map.Entry<UUID, byte[]> change : batch.entrySet()) {
+            byte[] old = change.getValue() == null ? records.remove(change.getKey()) : records.put(change.getKey(), change.getValue());
+            if (old != null) ++oldRecords;
+        }
+
+        batch.clear();
+    }
+
+    /**
+     * Writes the changed regions to the store in a single batch.
+     *
+     * @param changed The data of the regions that were added or changed.
+     * @param removed The ids of the regions that were removed.
+     * @throws IOException If the changes could not be written.
+     */
+    synchronized void write(@NotNull Map<UUID, ? extends ConfigurationSection> changed, @NotNull Collection<UUID> removed) throws IOException {
+        if (changed.isEmpty() && removed.isEmpty()) return;
+
+        var batch = new LinkedHashMap<UUID, byte[]>();
+        var bytes = new ByteArrayOutputStream();
+        var output = new DataOutputStream(bytes);
+
+        if (!Files.exists(file)) writeHeader(output);
+        for (UUID id : removed) {
+            if (!records.containsKey(id)) continue;
+            batch.put(id, null);
+            writeRecord(output, REMOVE, id, null);
+        }
+        for (Map.Entry<UUID, ? extends ConfigurationSection> region : changed.entrySet()) {
+            byte[] payload = encode(region.getValue());
+            batch.put(region.getKey(), payload);
+            writeRecord(output, PUT, region.getKey(), payload);
+        }
+        writeRecord(output, COMMIT, null, null);
+
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+
+        applyBatch(batch);
+        if (oldRecords > 64 && oldRecords > records.size()) compact();
+    }
+
+    /**
+     * Rewrites the store with only the current data of the regions.
+     *
+     * @throws IOException If the store could not be rewritten.
+     */
+    synchronized void compact() throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        var output = new DataOutputStream(bytes);
+
+        writeHeader(output);
+        for (Map.Entry<UUID, byte[]> record : records.entrySet()) {
+            writeRecord(output, PUT, record.getKey(), record.getValue());
+        }
+        writeRecord(output, COMMIT, null, null);
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        oldRecords = 0;
+    }
+
+    /**
+     * @return The data of all regions in the store, including the ones that could not be loaded.
+     * @throws IOException If the data of a region is corrupted.
+     */
+    synchronized @NotNull LinkedHashMap<UUID, Configuration> getAll() throws IOException {
+        var regions = new LinkedHashMap<UUID, Configuration>();
+
+        for (Map.Entry<UUID, byte[]> record : records.entrySet()) {
+            regions.put(record.getKey(), decode(record.getValue()));
+        }
+
+        return regions;
+    }
+
+    private static void writeHeader(@NotNull DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+    }
+
+    private static void writeRecord(@NotNull DataOutputStream output, byte type, UUID id, byte[] payload) throws IOException {
+        int length = 1 + (id == null ? 0 : 16) + (payload == null ? 0 : payload.length);
+        var body = ByteBuffer.allocate(length);
+
+        body.put(type);
+        if (id != null) body.putLong(id.getMostSignificantBits()).putLong(id.getLeastSignificantBits());
+        if (payload != null) body.put(payload);
+
+        var crc = new CRC32();
+        crc.update(body.array());
+
+        output.writeInt(length);
+        output.write(body.array());
+        output.writeInt((int) crc.getValue());
+    }
+
+    private static byte @NotNull [] encode(@NotNull ConfigurationSection data) throws IOException {
+        var bytes = new ByteArrayOutputStream(256);
+        var output = new DataOutputStream(bytes);
+        var nodes = new ArrayList<Map.Entry<String, Object>>();
+
+        for (Map.Entry<String, Object> node : data.getAbsoluteNodes().entrySet()) {
+            if (node.getValue() != null && !(node.getValue() instanceof ConfigurationSection)) nodes.add(node);
+        }
+
+        output.writeInt(nodes.size());
+        for (Map.Entry<String, Object> node : nodes) {
+            writeString(output, node.getKey());
+            writeValue(output, node.getValue());
+        }
+
+        return bytes.toByteArray();
+    }
+
+    private static @NotNull Configuration decode(byte @NotNull [] payload) throws IOException {
+        var input = new DataInputStream(new ByteArrayInputStream(payload));
+        var data = new Configuration(new YamlConfigurationLoader());
+        int size = input.readInt();
+
+        for (int i = 0; i < size; ++i) {
+            data.set(readString(input), readValue(input));
+        }
+
+        return data;
+    }
+
+    private static void writeValue(@NotNull DataOutputStream output, @NotNull Object value) throws IOException {
+        if (value instanceof Boolean b) {
+            output.writeByte(TYPE_BOOLEAN);
+            output.writeBoolean(b);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            output.writeByte(TYPE_INT);
+            output.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long l) {
+            output.writeByte(TYPE_LONG);
+            output.writeLong(l);
+        } else if (value instanceof Number n) {
+            output.writeByte(TYPE_DOUBLE);
+            output.writeDouble(n.doubleValue());
+        } else if (value instanceof List<?> list) {
+            output.writeByte(TYPE_LIST);
+            output.writeInt(list.size());
+            for (Object element : list) writeValue(output, element == null ? "" : element);
+        } else {
+            output.writeByte(TYPE_STRING);
+            writeString(output, value.toString());
+        }
+    }
+
+    private static @NotNull Object readValue(@NotNull DataInputStream input) throws IOException {
+        byte type = input.readByte();
+
+        return switch (type) {
+            case TYPE_BOOLEAN -> input.readBoolean();
+            case TYPE_INT -> input.readInt();
+            case TYPE_LONG -> input.readLong();
+            case TYPE_DOUBLE -> input.readDouble();
+            case TYPE_LIST -> {
+                int size = input.readInt();
+                var list = new ArrayList<>(size);
+                for (int i = 0; i < size; ++i) list.add(readValue(input));
+                yield list;
+            }
+            case TYPE_STRING -> readString(input);
+            default -> throw new IOException("Unknown value type " + type + " in region store.");
+        };
+    }
+
+    private static void writeString(@NotNull DataOutputStream output, @NotNull String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static @NotNull String readString(@NotNull DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
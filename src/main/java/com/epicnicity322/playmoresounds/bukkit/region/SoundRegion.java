@@ -48,7 +48,6 @@ public class SoundRegion {
     private @Nullable String description;
     private @NotNull Location maxDiagonal;
     private Location minDiagonal;
-    private Set<Location> border;
     private @Nullable PlayableRichSound enterSound;
     private @Nullable PlayableRichSound leaveSound;
     private @Nullable PlayableRichSound loopSound;
@@ -64,12 +63,22 @@ public class SoundRegion {
      * @throws NullPointerException     If the world does not exist anymore or is not loaded.
      */
     public SoundRegion(@NotNull Configuration data) {
-        Supplier<IllegalArgumentException> invalidRegionData = () -> new IllegalArgumentException("The provided data does not contain valid region data.");
+        this(idOf(data), data);
+    }
 
-        Path path = data.getFilePath().orElseThrow(() -> new IllegalArgumentException("Data is not stored on a real file.")).getFileName();
-        String fileName = path.toString();
+    /**
+     * Loads a sound region with the specified id from a configuration section with the same keys of a region file.
+     *
+     * @param id   The id of the region.
+     * @param data The section containing all the region data.
+     * @throws IllegalArgumentException If data is invalid or missing any of the required keys.
+     * @throws NullPointerException     If the world does not exist anymore or is not loaded.
+     * @see #SoundRegion(Configuration)
+     */
+    SoundRegion(@NotNull UUID id, @NotNull ConfigurationSection data) {
+        Supplier<IllegalArgumentException> invalidRegionData = () -> new IllegalArgumentException("The provided data does not contain valid region data.");
 
-        id = UUID.fromString(fileName.substring(0, fileName.indexOf(".")));
+        this.id = id;
         creator = data.getString("Creator").map(UUID::fromString).orElse(null);
         creationDate = data.getString("Creation Date").map(ZonedDateTime::parse).orElseThrow(invalidRegionData);
         setName(data.getString("Name").orElseThrow(invalidRegionData));
@@ -122,32 +131,11 @@ public class SoundRegion {
         setMinDiagonal(minDiagonal);
     }
 
-    /**
-     * @return The exact locations of the border blocks of this region.
-     */
-    private Set<Location> parseBorder() {
-        var border = new HashSet<Location>();
-
-        double startX = minDiagonal.getX();
-        double endX = maxDiagonal.getX() + 1d;
-        double startY = minDiagonal.getY();
-        double endY = maxDiagonal.getY() + 1d;
-        double startZ = minDiagonal.getZ();
-        double endZ = maxDiagonal.getZ() + 1d;
-        World world = minDiagonal.getWorld();
-
-        for (double x = startX; x <= endX; ++x)
-            for (double y = startY; y <= endY; ++y)
-                for (double z = startZ; z <= endZ; ++z) {
-                    boolean edgeX = x == startX || x == endX;
-                    boolean edgeY = y == startY || y == endY;
-                    boolean edgeZ = z == startZ || z == endZ;
-
-                    if ((edgeX && edgeY) || (edgeZ && edgeY) || (edgeX && edgeZ))
-                        border.add(new Location(world, x, y, z));
-                }
+    private static @NotNull UUID idOf(@NotNull Configuration data) {
+        Path path = data.getFilePath().orElseThrow(() -> new IllegalArgumentException("Data is not stored on a real file.")).getFileName();
+        String fileName = path.toString();
 
-        return Collections.unmodifiableSet(border);
+        return UUID.fromString(fileName.substring(0, fileName.indexOf(".")));
     }
 
     /**
@@ -234,8 +222,8 @@ public class SoundRegion {
 
         maxDiagonal = new Location(world, maxX, maxY, maxZ);
         minDiagonal = new Location(world, minX, minY, minZ);
-        border = parseBorder();
         addToSave();
+        if (autoSave) RegionManager.updateIndex();
     }
 
     /**
@@ -268,17 +256,31 @@ public class SoundRegion {
 
         maxDiagonal = new Location(world, maxX, maxY, maxZ);
         minDiagonal = new Location(world, minX, minY, minZ);
-        border = parseBorder();
         addToSave();
+        if (autoSave) RegionManager.updateIndex();
     }
 
     /**
-     * Gets the coordinates of the border blocks of this region.
+     * Gets the coordinates of the border blocks of this region. The coordinates are calculated as they are iterated,
+     * so no coordinates are kept in memory.
      *
-     * @return The coordinates of the border of this region.
+     * @return The coordinates of the edges of this region, one block apart.
+     * @see #getBorder(int)
      */
-    public @NotNull Set<Location> getBorder() {
-        return border;
+    public @NotNull Iterable<Location> getBorder() {
+        return getBorder(1);
+    }
+
+    /**
+     * Gets the coordinates of the border blocks of this region, skipping blocks according to the stride. The corners of
+     * this region are always included. The coordinates are calculated as they are iterated, so no coordinates are kept
+     * in memory.
+     *
+     * @param stride The distance in blocks between each coordinate of the edges.
+     * @return The coordinates of the edges of this region.
+     */
+    public @NotNull Iterable<Location> getBorder(int stride) {
+        return () -> new BorderIterator(minDiagonal, maxDiagonal, Math.max(1, stride));
     }
 
     /**
@@ -454,6 +456,83 @@ public class SoundRegion {
                 '}';
     }
 
+    /**
+     * Walks the 12 edges of a region, from the min to the max coordinate of each edge. Edges along the X axis include
+     * the corners, so the corners are not repeated by the other edges.
+     */
+    private static final class BorderIterator implements Iterator<Location> {
+        private final @NotNull World world;
+        private final double[] min;
+        private final double[] max;
+        private final int stride;
+        private int edge = 0;
+        private boolean started = false;
+        private boolean endReturned;
+        private double current;
+        private @Nullable Location next;
+
+        private BorderIterator(@NotNull Location minDiagonal, @NotNull Location maxDiagonal, int stride) {
+            this.world = minDiagonal.getWorld();
+            this.min = new double[]{minDiagonal.getX(), minDiagonal.getY(), minDiagonal.getZ()};
+            // Border is on the outer side of the max blocks.
+            this.max = new double[]{maxDiagonal.getX() + 1d, maxDiagonal.getY() + 1d, maxDiagonal.getZ() + 1d};
+            this.stride = stride;
+            next = computeNext();
+        }
+
+        private @Nullable Location computeNext() {
+            while (edge < 12) {
+                int axis = edge / 4;
+                boolean includeCorners = axis == 0;
+
+                if (!started) {
+                    current = includeCorners ? min[axis] : min[axis] + stride;
+                    endReturned = !includeCorners;
+                    started = true;
+                }
+                if (current < max[axis]) {
+                    double value = current;
+                    current += stride;
+                    return point(axis, edge % 4, value);
+                }
+                if (!endReturned) {
+                    endReturned = true;
+                    return point(axis, edge % 4, max[axis]);
+                }
+
+                ++edge;
+                started = false;
+            }
+
+            return null;
+        }
+
+        private @NotNull Location point(int axis, int corner, double value) {
+            double[] coordinates = new double[3];
+            int other1 = axis == 0 ? 1 : 0;
+            int other2 = axis == 2 ? 1 : 2;
+
+            coordinates[axis] = value;
+            coordinates[other1] = (corner & 2) == 0 ? min[other1] : max[other1];
+            coordinates[other2] = (corner & 1) == 0 ? min[other2] : max[other2];
+
+            return new Location(world, coordinates[0], coordinates[1], coordinates[2]);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public @NotNull Location next() {
+            Location location = next;
+            if (location == null) throw new NoSuchElementException();
+            next = computeNext();
+            return location;
+        }
+    }
+
     /**
      * This sound will automatically add the region to {@link RegionManager#regionsToSave} if any property is changed.
      */
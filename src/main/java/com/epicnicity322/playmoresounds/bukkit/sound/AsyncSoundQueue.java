@@ -0,0 +1,190 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.epicnicity322.epicpluginlib.core.logger.ConsoleLogger;
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.PlayMoreSoundsCore;
+import com.epicnicity322.playmoresounds.core.config.Configurations;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands sounds triggered by async events, like chat, over to the main thread. Sounds are added to a queue by any
+ * thread, and a single repeating task plays all the queued sounds every tick, instead of a task being scheduled for
+ * every sound.
+ * <p>
+ * The queue is bounded by "Performance.Async Sound Queue.Max Size", and what happens to sounds when the queue is full
+ * is set by "Performance.Async Sound Queue.Overflow Policy".
+ */
+public final class AsyncSoundQueue {
+    private static final @NotNull ConcurrentLinkedQueue<QueuedSound> queue = new ConcurrentLinkedQueue<>();
+    private static final @NotNull AtomicInteger depth = new AtomicInteger();
+    private static final @NotNull AtomicInteger peakDepth = new AtomicInteger();
+    private static final @NotNull AtomicLong dropped = new AtomicLong();
+    private static volatile int maxSize = 1000;
+    private static volatile @NotNull OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+    private static @Nullable BukkitTask drainTask;
+    private static long played = 0;
+
+    static {
+        PlayMoreSounds.onDisable(() -> {
+            synchronized (AsyncSoundQueue.class) {
+                if (drainTask != null) drainTask.cancel();
+                drainTask = null;
+            }
+            queue.clear();
+            depth.set(0);
+        });
+    }
+
+    private AsyncSoundQueue() {
+    }
+
+    /**
+     * Reads the queue settings from config and starts the task that plays the queued sounds.
+     *
+     * @param plugin The plugin to run the task.
+     */
+    public static synchronized void load(@NotNull PlayMoreSounds plugin) {
+        var config = Configurations.CONFIG.getConfigurationHolder().getConfiguration();
+        String policy = config.getString("Performance.Async Sound Queue.Overflow Policy").orElse("DROP_NEWEST");
+
+        maxSize = Math.max(1, config.getNumber("Performance.Async Sound Queue.Max Size").orElse(1000).intValue());
+
+        try {
+            overflowPolicy = OverflowPolicy.valueOf(policy.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            PlayMoreSounds.getConsoleLogger().log("The overflow policy " + policy + " of async sound queue does not exist, so DROP_NEWEST was used.", ConsoleLogger.Level.WARN);
+            overflowPolicy = OverflowPolicy.DROP_NEWEST;
+        }
+
+        if (drainTask == null) drainTask = Bukkit.getScheduler().runTaskTimer(plugin, AsyncSoundQueue::drain, 1, 1);
+    }
+
+    /**
+     * Plays a sound to a player in the main thread. If this is called on the main thread, the sound is played right
+     * away.
+     *
+     * @param sound  The sound to play.
+     * @param player The player to play the sound.
+     * @return Whether the sound was played or queued, false if it was dropped because the queue is full.
+     */
+    public static boolean play(@NotNull PlayableRichSound sound, @NotNull Player player) {
+        if (Bukkit.isPrimaryThread()) {
+            sound.play(player);
+            return true;
+        }
+
+        int size = depth.incrementAndGet();
+
+        if (size > maxSize) {
+            if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                depth.decrementAndGet();
+                dropped.incrementAndGet();
+                return false;
+            }
+
+            // Making room for the new sound.
+            if (queue.poll() != null) depth.decrementAndGet();
+            dropped.incrementAndGet();
+        }
+
+        queue.add(new QueuedSound(sound, player));
+        peakDepth.accumulateAndGet(size, Math::max);
+        return true;
+    }
+
+    private static void drain() {
+        QueuedSound queued;
+
+        while ((queued = queue.poll()) != null) {
+            depth.decrementAndGet();
+            if (!queued.player.isOnline()) continue;
+
+            try {
+                queued.sound.play(queued.player);
+                ++played;
+            } catch (Throwable t) {
+                PlayMoreSoundsCore.getErrorHandler().report(t, "Async Sound Queue Error:");
+            }
+        }
+    }
+
+    /**
+     * @return The amount of sounds waiting in the queue.
+     */
+    public static int getDepth() {
+        return Math.max(0, depth.get());
+    }
+
+    /**
+     * @return The most sounds that were waiting in the queue at once.
+     */
+    public static int getPeakDepth() {
+        return peakDepth.get();
+    }
+
+    /**
+     * @return The amount of sounds that were not played because the queue was full.
+     */
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The amount of sounds played from the queue.
+     */
+    public static long getPlayed() {
+        return played;
+    }
+
+    /**
+     * Sets the peak depth, dropped and played counters back to 0.
+     */
+    public static void resetCounters() {
+        peakDepth.set(0);
+        dropped.set(0);
+        played = 0;
+    }
+
+    /**
+     * What to do with sounds when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * The sound being added is not played.
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest sound in the queue is not played, so the sound being added can be queued.
+         */
+        DROP_OLDEST
+    }
+
+    private record QueuedSound(@NotNull PlayableRichSound sound, @NotNull Player player) {
+    }
+}
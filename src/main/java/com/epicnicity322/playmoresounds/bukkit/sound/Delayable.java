@@ -21,7 +21,6 @@ package com.epicnicity322.playmoresounds.bukkit.sound;
 import com.epicnicity322.playmoresounds.core.sound.SoundOptions;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -48,7 +47,7 @@ public interface Delayable extends Playable {
      *
      * @param player         The player to play the sound.
      * @param sourceLocation The location where the sound will play.
-     * @return A {@link BukkitTask} if the sound was tasked to be played with a delay greater than 0.
+     * @return The listeners of the sound and a {@link SoundScheduler.SoundTask} if the sound was tasked to be played with a delay greater than 0.
      */
     @NotNull PlayResult<?> playDelayable(@Nullable Player player, @NotNull Location sourceLocation);
 
@@ -57,14 +56,14 @@ public interface Delayable extends Playable {
     }
 
     record ChildPlayResult(@NotNull Collection<Player> listeners,
-                           @Nullable BukkitTask delayedTask) implements PlayResult<ChildPlayResult> {
+                           @Nullable SoundScheduler.SoundTask delayedTask) implements PlayResult<ChildPlayResult> {
         public @NotNull ChildPlayResult get() {
             return this;
         }
     }
 
     record RichPlayResult(@NotNull Collection<Player> listeners,
-                          @Nullable List<BukkitTask> delayedTasks) implements PlayResult<RichPlayResult> {
+                          @Nullable List<SoundScheduler.SoundTask> delayedTasks) implements PlayResult<RichPlayResult> {
         public @NotNull RichPlayResult get() {
             return this;
         }
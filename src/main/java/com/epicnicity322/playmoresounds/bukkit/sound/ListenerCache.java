@@ -0,0 +1,167 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.config.Configurations;
+import com.epicnicity322.playmoresounds.core.sound.SoundOptions;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Caches the results of listener validation of {@link PlaySoundEvent#validateListener(Player)}, so validating a
+ * listener that was validated before is a few bit tests instead of permission and sound state lookups.
+ * <p>
+ * Permissions to listen are interned to a bit index. The cache of a player is invalidated when they toggle their
+ * sounds, change world or quit, and the whole cache is cleared every "Performance.Listener Cache Time" ticks, so
+ * permission changes made by other plugins are taken in account. Plugins that change permissions can call
+ * {@link #invalidate(Player)} for the changes to be seen right away.
+ * <p>
+ * Visibility of the player who played the sound is never cached, because hiding a player calls no event, and a vanished
+ * player could be located by their sounds until the cache was cleared.
+ * <p>
+ * The cache is only used on the main thread.
+ */
+public final class ListenerCache implements Listener {
+    private static final @NotNull ListenerCache instance = new ListenerCache();
+    private static final @NotNull HashMap<String, Integer> permissionIndexes = new HashMap<>();
+    private static final @NotNull HashMap<UUID, CachedListener> listeners = new HashMap<>();
+    private static volatile boolean loaded = false;
+    private static @Nullable BukkitTask clearTask;
+
+    private ListenerCache() {
+    }
+
+    /**
+     * Enables or disables the cache according to the "Performance.Listener Cache Time" setting in config.
+     *
+     * @param plugin The plugin to register the listener and clear task.
+     */
+    public static synchronized void load(@NotNull PlayMoreSounds plugin) {
+        long time = Configurations.CONFIG.getConfigurationHolder().getConfiguration().getNumber("Performance.Listener Cache Time").orElse(100).longValue();
+
+        if (loaded) {
+            HandlerList.unregisterAll(instance);
+            if (clearTask != null) clearTask.cancel();
+            clearTask = null;
+            loaded = false;
+            clear();
+        }
+        if (time <= 0) return;
+
+        Bukkit.getPluginManager().registerEvents(instance, plugin);
+        clearTask = Bukkit.getScheduler().runTaskTimer(plugin, ListenerCache::clear, time, time);
+        loaded = true;
+    }
+
+    /**
+     * Validates a listener through the cache, or through {@link PlaySoundEvent#validateListener(Player)} checks if
+     * the cache is disabled or this is not called on the main thread.
+     *
+     * @param options      The options of the sound being played.
+     * @param sourcePlayer The player who played the sound.
+     * @param listener     The player to validate as a listener for the sound.
+     * @return If the player is a valid listener of the sound.
+     */
+    static boolean validate(@NotNull SoundOptions options, @Nullable Player sourcePlayer, @NotNull Player listener) {
+        if (!loaded || !Bukkit.isPrimaryThread()) {
+            return (options.ignoresDisabled() || SoundManager.getSoundsState(listener))
+                    && (options.getPermissionToListen() == null || listener.hasPermission(options.getPermissionToListen()))
+                    && (sourcePlayer == null || listener.canSee(sourcePlayer));
+        }
+
+        CachedListener cached = listeners.get(listener.getUniqueId());
+
+        if (cached == null) {
+            cached = new CachedListener(SoundManager.getSoundsState(listener));
+            listeners.put(listener.getUniqueId(), cached);
+        }
+
+        if (!options.ignoresDisabled() && !cached.soundsState) return false;
+
+        String permission = options.getPermissionToListen();
+
+        if (permission != null) {
+            int index = permissionIndexes.computeIfAbsent(permission, k -> permissionIndexes.size());
+
+            if (!cached.knownPermissions.get(index)) {
+                cached.knownPermissions.set(index);
+                if (listener.hasPermission(permission)) cached.permissions.set(index);
+            }
+            if (!cached.permissions.get(index)) return false;
+        }
+
+        return sourcePlayer == null || listener.canSee(sourcePlayer);
+    }
+
+    /**
+     * Invalidates the cached permissions and sound state of a player.
+     *
+     * @param player The player to invalidate.
+     */
+    public static void invalidate(@NotNull Player player) {
+        if (!loaded || !Bukkit.isPrimaryThread()) {
+            // Clearing the cache in the main thread so it is not modified while sounds are validated.
+            if (loaded && PlayMoreSounds.getInstance() != null)
+                Bukkit.getScheduler().runTask(PlayMoreSounds.getInstance(), () -> invalidate(player));
+            return;
+        }
+
+        listeners.remove(player.getUniqueId());
+    }
+
+    private static void clear() {
+        listeners.clear();
+        // Permission indexes are kept, because they are the same across cache clears.
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        // Permission plugins may have different permissions per world.
+        invalidate(event.getPlayer());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        invalidate(event.getPlayer());
+    }
+
+    private static final class CachedListener {
+        private final boolean soundsState;
+        private final @NotNull BitSet knownPermissions = new BitSet();
+        private final @NotNull BitSet permissions = new BitSet();
+
+        private CachedListener(boolean soundsState) {
+            this.soundsState = soundsState;
+        }
+    }
+}
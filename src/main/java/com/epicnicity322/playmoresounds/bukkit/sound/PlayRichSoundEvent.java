@@ -34,7 +34,7 @@ import java.util.Objects;
  * @see PlaySoundEvent
  */
 public class PlayRichSoundEvent extends Event implements Cancellable {
-    private static final @NotNull HandlerList handlers = new HandlerList();
+    private static final @NotNull WatchedHandlerList handlers = new WatchedHandlerList();
     private final @Nullable Player player;
     private final @NotNull PlayableRichSound richSound;
     @NotNull Location location;
@@ -50,6 +50,13 @@ public class PlayRichSoundEvent extends Event implements Cancellable {
         return handlers;
     }
 
+    /**
+     * @return Whether any listener is registered to this event, if not, the event does not need to be called.
+     */
+    static boolean hasListeners() {
+        return handlers.hasListeners();
+    }
+
     @Override
     public boolean isCancelled() {
         return cancelled;
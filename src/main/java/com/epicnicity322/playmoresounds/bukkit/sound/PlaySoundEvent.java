@@ -37,7 +37,7 @@ import java.util.stream.Collectors;
  * This event is called before a sound is played.
  */
 public class PlaySoundEvent extends Event implements Cancellable {
-    private static final @NotNull HandlerList handlers = new HandlerList();
+    private static final @NotNull WatchedHandlerList handlers = new WatchedHandlerList();
     private final @NotNull PlayableSound sound;
     private final @Nullable Player sourcePlayer;
     private final @NotNull Collection<Player> listeners;
@@ -60,6 +60,13 @@ public class PlaySoundEvent extends Event implements Cancellable {
         return handlers;
     }
 
+    /**
+     * @return Whether any listener is registered to this event, if not, the event does not need to be called.
+     */
+    static boolean hasListeners() {
+        return handlers.hasListeners();
+    }
+
     /**
      * @return Whether the event is cancelled and the sound is not playing.
      */
@@ -210,11 +217,20 @@ public class PlaySoundEvent extends Event implements Cancellable {
      * @return If the player is a valid listener of {@link #getSound()}.
      */
     public boolean validateListener(@NotNull Player listener) {
-        SoundOptions options = getSound().getOptions();
+        return validateListener(sound, sourcePlayer, listener);
+    }
 
-        return (options.ignoresDisabled() || SoundManager.getSoundsState(listener))
-                && (options.getPermissionToListen() == null || listener.hasPermission(options.getPermissionToListen()))
-                && (sourcePlayer == null || listener.canSee(sourcePlayer));
+    /**
+     * Validates the listener the same way {@link #validateListener(Player)} does, without the need of an event instance.
+     * Results are cached by {@link ListenerCache}.
+     *
+     * @param sound        The sound being played.
+     * @param sourcePlayer The player who played the sound.
+     * @param listener     The player to validate as a listener for the sound.
+     * @return If the player is a valid listener of the sound.
+     */
+    static boolean validateListener(@NotNull PlayableSound sound, @Nullable Player sourcePlayer, @NotNull Player listener) {
+        return ListenerCache.validate(sound.getOptions(), sourcePlayer, listener);
     }
 
     @Override
@@ -18,14 +18,11 @@
 
 package com.epicnicity322.playmoresounds.bukkit.sound;
 
-import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
 import com.epicnicity322.playmoresounds.core.sound.RichSound;
 import com.epicnicity322.yamlhandler.ConfigurationSection;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -36,12 +33,27 @@ import java.util.HashSet;
 import java.util.function.Supplier;
 
 public class PlayableRichSound extends RichSound<PlayableSound> implements Delayable {
+    final int soundId = RateLimiter.nextSoundId();
+    private final @NotNull RichSoundProperties properties;
+
     public PlayableRichSound(@NotNull String name, boolean enabled, boolean cancellable, @Nullable Collection<PlayableSound> childSounds) {
         super(name, enabled, cancellable, childSounds);
+        properties = RichSoundProperties.DEFAULT;
     }
 
     public PlayableRichSound(@NotNull ConfigurationSection section) {
         super(section);
+        properties = RichSoundProperties.of(section);
+    }
+
+    /**
+     * The behavioral properties of this sound, like "Prevent Default Sound", read from {@link #getSection()} when
+     * this sound was created.
+     *
+     * @return The properties of this sound.
+     */
+    public @NotNull RichSoundProperties getProperties() {
+        return properties;
     }
 
     @Override
@@ -49,34 +61,52 @@ public class PlayableRichSound extends RichSound<PlayableSound> implements Delay
         return new PlayableSound(section);
     }
 
+    /**
+     * Whether the player is in cooldown for this sound, according to "Cooldown" properties.
+     *
+     * @param player The player playing the sound.
+     * @return If the sound should not play.
+     */
+    private boolean throttled(@Nullable Player player) {
+        return player != null && properties.cooldownTime() > 0 && !RateLimiter.tryAcquire(player, this);
+    }
+
     @Override
     public void play(@Nullable Player player, @NotNull Location sourceLocation) {
-        if (isEnabled() && !getChildSounds().isEmpty()) {
-            var event = new PlayRichSoundEvent(player, sourceLocation, this);
+        if (isEnabled() && !getChildSounds().isEmpty() && !throttled(player)) {
+            // Skipping the event if nobody is listening to it.
+            if (PlayRichSoundEvent.hasListeners()) {
+                var event = new PlayRichSoundEvent(player, sourceLocation, this);
 
-            Bukkit.getPluginManager().callEvent(event);
+                Bukkit.getPluginManager().callEvent(event);
 
-            if (event.isCancelled()) return;
+                if (event.isCancelled()) return;
+                sourceLocation = event.location;
+            }
 
             for (PlayableSound s : getChildSounds())
-                s.play(player, event.location);
+                s.play(player, sourceLocation);
         }
     }
 
     @Override
     public @NotNull RichPlayResult playDelayable(@Nullable Player player, @NotNull Location sourceLocation) {
-        if (isEnabled() && !getChildSounds().isEmpty()) {
-            var event = new PlayRichSoundEvent(player, sourceLocation, this);
+        if (isEnabled() && !getChildSounds().isEmpty() && !throttled(player)) {
+            // Skipping the event if nobody is listening to it.
+            if (PlayRichSoundEvent.hasListeners()) {
+                var event = new PlayRichSoundEvent(player, sourceLocation, this);
 
-            Bukkit.getPluginManager().callEvent(event);
+                Bukkit.getPluginManager().callEvent(event);
 
-            if (event.isCancelled()) return new RichPlayResult(Collections.emptyList(), Collections.emptyList());
+                if (event.isCancelled()) return new RichPlayResult(Collections.emptyList(), Collections.emptyList());
+                sourceLocation = event.location;
+            }
 
             var listeners = new HashSet<Player>();
-            var tasks = new ArrayList<BukkitTask>();
+            var tasks = new ArrayList<SoundScheduler.SoundTask>();
 
             for (PlayableSound s : getChildSounds()) {
-                ChildPlayResult result = s.playDelayable(player, event.location);
+                ChildPlayResult result = s.playDelayable(player, sourceLocation);
                 listeners.addAll(result.listeners());
                 if (result.delayedTask() != null) tasks.add(result.delayedTask());
             }
@@ -89,40 +119,21 @@ public class PlayableRichSound extends RichSound<PlayableSound> implements Delay
 
     /**
      * Plays the sound repeatedly after the time set on period.
-     * The {@link BukkitRunnable} will be cancelled if the sound is disabled, has no child sounds or if the player is no
-     * longer online, in case there is one.
+     * The loop will be cancelled if the sound is disabled, has no child sounds or if the player is no longer online,
+     * in case there is one.
      * {@link PlayRichSoundEvent} will be called for every time the sound is played by this loop.
+     * <p>
+     * All loops are played by {@link SoundLoops} in a single task.
      *
      * @param player         The player to play the sound.
      * @param sourceLocation The location where the sound will play.
      * @param delay          The time in ticks to wait before playing the first sound.
      * @param period         The time in ticks to wait before playing the sound again.
      * @param breaker        A boolean that will run in the loop, if the boolean is true the loop will be cancelled.
-     * @return The {@link BukkitRunnable} of the loop that can be used to cancel later.
+     * @return The {@link SoundLoops.SoundLoop} that can be used to cancel later.
      * @throws IllegalStateException If PlayMoreSounds was not instantiated by bukkit yet.
      */
-    public @NotNull BukkitRunnable playInLoop(@Nullable Player player, @NotNull Supplier<Location> sourceLocation, long delay, long period, @Nullable Supplier<Boolean> breaker) {
-        var main = PlayMoreSounds.getInstance();
-        if (main == null) throw new IllegalStateException("PlayMoreSounds is not loaded.");
-
-        Supplier<Boolean> finalBreaker = () -> !isEnabled() || getChildSounds().isEmpty()
-                || (player != null && !player.isOnline()) || (breaker != null && breaker.get());
-
-        BukkitRunnable runnable = new BukkitRunnable() {
-            @Override
-            public void run() {
-                if (finalBreaker.get()) {
-                    if (!isCancelled()) cancel();
-                    return;
-                }
-
-                play(player, sourceLocation.get());
-            }
-        };
-
-        if (isEnabled() && !getChildSounds().isEmpty())
-            runnable.runTaskTimer(main, delay, period);
-
-        return runnable;
+    public @NotNull SoundLoops.SoundLoop playInLoop(@Nullable Player player, @NotNull Supplier<Location> sourceLocation, long delay, long period, @Nullable Supplier<Boolean> breaker) {
+        return SoundLoops.add(this, player, sourceLocation, delay, period, breaker);
     }
 }
@@ -76,23 +76,35 @@ public class PlayableSound extends Sound implements Delayable {
             if (options.getRadius() == 0.0 || player.getGameMode() == GameMode.SPECTATOR || (player.hasPotionEffect(PotionEffectType.INVISIBILITY) && player.hasPermission("playmoresounds.bypass.invisibility"))) {
                 listeners = Collections.singleton(player);
             } else {
-                listeners = SoundManager.getInRange(options.getRadius(), sourceLocation);
+                listeners = SoundManager.getInRange(SoundManager.cullRadius(options.getRadius(), getVolume()), sourceLocation);
             }
         } else {
-            listeners = SoundManager.getInRange(options.getRadius(), sourceLocation);
+            listeners = SoundManager.getInRange(SoundManager.cullRadius(options.getRadius(), getVolume()), sourceLocation);
         }
 
         if (getDelay() == 0) {
             play(player, listeners, sourceLocation);
             return new ChildPlayResult(listeners, null);
         } else {
-            return new ChildPlayResult(listeners, Bukkit.getScheduler().runTaskLater(PlayMoreSounds.getInstance(), () -> play(player, listeners, sourceLocation), getDelay()));
+            return new ChildPlayResult(listeners, SoundScheduler.schedule(() -> play(player, listeners, sourceLocation), getDelay()));
         }
     }
 
     private void play(@Nullable Player sourcePlayer, @NotNull Collection<Player> listeners, @NotNull Location soundLocation) {
+        boolean global = getOptions().getRadius() == -1.0 || getOptions().getRadius() == -2.0;
+
+        // Skipping the event if nobody is listening to it.
+        if (!PlaySoundEvent.hasListeners()) {
+            for (Player listener : listeners) {
+                if (!PlaySoundEvent.validateListener(this, sourcePlayer, listener)) continue;
+
+                SoundBus.playSound(listener, global ? listener.getLocation() : soundLocation, getSound(), getCategory().asBukkit(), getVolume(), getPitch());
+            }
+            return;
+        }
+
         // Calling PlaySoundEvent.
-        var event = new PlaySoundEvent(this, sourcePlayer, soundLocation, listeners, getOptions().getRadius() == -1.0 || getOptions().getRadius() == -2.0);
+        var event = new PlaySoundEvent(this, sourcePlayer, soundLocation, listeners, global);
 
         Bukkit.getPluginManager().callEvent(event);
 
@@ -103,9 +115,9 @@ public class PlayableSound extends Sound implements Delayable {
             if (!event.validateListener(listener)) continue;
 
             if (event.playingGlobally()) {
-                listener.playSound(listener.getLocation(), getSound(), getCategory().asBukkit(), getVolume(), getPitch());
+                SoundBus.playSound(listener, listener.getLocation(), getSound(), getCategory().asBukkit(), getVolume(), getPitch());
             } else {
-                listener.playSound(event.location, getSound(), getCategory().asBukkit(), getVolume(), getPitch());
+                SoundBus.playSound(listener, event.location, getSound(), getCategory().asBukkit(), getVolume(), getPitch());
             }
         }
     }
@@ -0,0 +1,270 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.config.Configurations;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.*;
+import org.bukkit.event.vehicle.VehicleMoveEvent;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * An index of online players by the chunk they are in, so radius lookups of {@link SoundManager#getInRange(double, Location)}
+ * only need to check the players in chunks that overlap the radius, instead of every player in the world.
+ * <p>
+ * The index is updated on move, teleport, join, quit, respawn and world change. Players riding a boat, minecart or
+ * mount don't call move events, so the passengers of moving vehicles are updated when the vehicle changes chunk.
+ * Every player is also re-indexed every second, in case a player moves in any other way that calls no event.
+ * <p>
+ * This index must only be accessed on the main thread.
+ */
+public final class PlayerGrid implements Listener {
+    private static final @NotNull PlayerGrid instance = new PlayerGrid();
+    /**
+     * The players in each chunk, by world.
+     */
+    private static final @NotNull HashMap<UUID, HashMap<Long, HashSet<Player>>> worlds = new HashMap<>();
+    /**
+     * The chunk each player was last indexed in.
+     */
+    private static final @NotNull HashMap<UUID, Cell> cells = new HashMap<>();
+    /**
+     * Location reused to get players locations without creating new instances on every lookup.
+     */
+    private static final @NotNull Location reusableLocation = new Location(null, 0, 0, 0);
+    private static volatile boolean loaded = false;
+    private static @Nullable BukkitTask resyncTask;
+
+    private PlayerGrid() {
+    }
+
+    /**
+     * Registers or unregisters the grid according to the "Performance.Listener Lookup" setting in config.
+     *
+     * @param plugin The plugin to register the listener and resync task.
+     */
+    public static synchronized void load(@NotNull PlayMoreSounds plugin) {
+        String lookup = Configurations.CONFIG.getConfigurationHolder().getConfiguration().getString("Performance.Listener Lookup").orElse("GRID");
+
+        if (lookup.equalsIgnoreCase("SCAN")) {
+            if (loaded) {
+                HandlerList.unregisterAll(instance);
+                if (resyncTask != null) resyncTask.cancel();
+                resyncTask = null;
+                loaded = false;
+                worlds.clear();
+                cells.clear();
+            }
+        } else {
+            if (!loaded) {
+                Bukkit.getPluginManager().registerEvents(instance, plugin);
+                resyncTask = Bukkit.getScheduler().runTaskTimer(plugin, PlayerGrid::resync, 20, 20);
+                loaded = true;
+            }
+
+            resync();
+        }
+    }
+
+    /**
+     * @return Whether the grid is enabled and can be used for lookups.
+     */
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Gets the players within a radius of a location, checking only the players of chunks that overlap the radius.
+     *
+     * @param radius   The radius, must be greater than 0.
+     * @param location The center of the radius.
+     * @return A mutable set with the players within the radius.
+     */
+    static @NotNull HashSet<Player> getInRange(double radius, @NotNull Location location) {
+        var inRadius = new HashSet<Player>();
+        var world = location.getWorld();
+        if (world == null) return inRadius;
+        HashMap<Long, HashSet<Player>> chunks = worlds.get(world.getUID());
+        if (chunks == null) return inRadius;
+
+        double x = location.getX(), y = location.getY(), z = location.getZ();
+        double squaredRadius = radius * radius;
+        int minX = floor(x - radius) >> 4, maxX = floor(x + radius) >> 4;
+        int minZ = floor(z - radius) >> 4, maxZ = floor(z + radius) >> 4;
+
+        // Big radiuses can overlap more chunks than there are players in the world, looking up the indexed chunks is faster then.
+        if ((long) (maxX - minX + 1) * (maxZ - minZ + 1) > chunks.size()) {
+            for (Map.Entry<Long, HashSet<Player>> chunk : chunks.entrySet()) {
+                long key = chunk.getKey();
+                int chunkX = (int) (key >> 32), chunkZ = (int) key;
+
+                if (chunkX < minX || chunkX > maxX || chunkZ < minZ || chunkZ > maxZ) continue;
+                addInRange(chunk.getValue(), inRadius, world.getUID(), x, y, z, squaredRadius);
+            }
+        } else {
+            for (int chunkX = minX; chunkX <= maxX; ++chunkX) {
+                for (int chunkZ = minZ; chunkZ <= maxZ; ++chunkZ) {
+                    HashSet<Player> players = chunks.get(key(chunkX, chunkZ));
+                    if (players != null) addInRange(players, inRadius, world.getUID(), x, y, z, squaredRadius);
+                }
+            }
+        }
+
+        return inRadius;
+    }
+
+    private static void addInRange(@NotNull HashSet<Player> players, @NotNull HashSet<Player> inRadius, @NotNull UUID world,
+                                   double x, double y, double z, double squaredRadius) {
+        for (Player player : players) {
+            Location playerLocation = player.getLocation(reusableLocation);
+            // Players that moved without calling events might be indexed in the wrong world until the next resync.
+            if (playerLocation.getWorld() == null || !playerLocation.getWorld().getUID().equals(world)) continue;
+
+            double distanceX = playerLocation.getX() - x;
+            double distanceY = playerLocation.getY() - y;
+            double distanceZ = playerLocation.getZ() - z;
+
+            if (distanceX * distanceX + distanceY * distanceY + distanceZ * distanceZ <= squaredRadius) {
+                inRadius.add(player);
+            }
+        }
+        reusableLocation.setWorld(null);
+    }
+
+    private static void resync() {
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            update(player, player.getLocation(reusableLocation));
+        }
+        reusableLocation.setWorld(null);
+        // Removing players that might have left without calling quit event.
+        cells.keySet().removeIf(uuid -> Bukkit.getPlayer(uuid) == null);
+        worlds.values().removeIf(chunks -> {
+            chunks.values().removeIf(players -> {
+                players.removeIf(player -> !player.isOnline());
+                return players.isEmpty();
+            });
+            return chunks.isEmpty();
+        });
+    }
+
+    private static void update(@NotNull Player player, @NotNull Location location) {
+        var world = location.getWorld();
+        if (world == null) return;
+
+        var newCell = new Cell(world.getUID(), key(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+        Cell oldCell = cells.put(player.getUniqueId(), newCell);
+
+        if (newCell.equals(oldCell)) return;
+        if (oldCell != null) remove(player, oldCell);
+
+        worlds.computeIfAbsent(newCell.world(), k -> new HashMap<>()).computeIfAbsent(newCell.chunk(), k -> new HashSet<>()).add(player);
+    }
+
+    private static void remove(@NotNull Player player, @NotNull Cell cell) {
+        HashMap<Long, HashSet<Player>> chunks = worlds.get(cell.world());
+        if (chunks == null) return;
+        HashSet<Player> players = chunks.get(cell.chunk());
+        if (players == null) return;
+
+        players.remove(player);
+        if (players.isEmpty()) chunks.remove(cell.chunk());
+        if (chunks.isEmpty()) worlds.remove(cell.world());
+    }
+
+    private static long key(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    private static int floor(double value) {
+        int floor = (int) value;
+        return value < floor ? floor - 1 : floor;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+
+        if (to == null || (from.getBlockX() >> 4 == to.getBlockX() >> 4 && from.getBlockZ() >> 4 == to.getBlockZ() >> 4))
+            return;
+
+        update(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onVehicleMove(VehicleMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+
+        if (from.getBlockX() >> 4 == to.getBlockX() >> 4 && from.getBlockZ() >> 4 == to.getBlockZ() >> 4) return;
+
+        for (Entity passenger : event.getVehicle().getPassengers()) {
+            if (passenger instanceof Player player) update(player, to);
+        }
+    }
+
+    // PlayerTeleportEvent has its own handler list, so it is not called by #onPlayerMove.
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent event) {
+        Location to = event.getTo();
+        if (to != null) update(event.getPlayer(), to);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerChangedWorld(PlayerChangedWorldEvent event) {
+        Player player = event.getPlayer();
+        update(player, player.getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent event) {
+        update(event.getPlayer(), event.getRespawnLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        update(player, player.getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        Player player = event.getPlayer();
+        Cell cell = cells.remove(player.getUniqueId());
+        if (cell != null) remove(player, cell);
+    }
+
+    private record Cell(@NotNull UUID world, long chunk) {
+    }
+}
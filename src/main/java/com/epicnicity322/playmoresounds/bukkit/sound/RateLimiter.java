@@ -0,0 +1,105 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.util.LongLongHashMap;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limits how often a player can play a rich sound that has "Cooldown" set, through a token bucket for each player and
+ * sound. Each bucket is stored as a single long in a primitive map: the server tick the bucket will be full again.
+ * <p>
+ * Time is counted in server ticks by a task that runs every tick, so cooldowns last the same amount of ticks even if
+ * the server is lagging.
+ * <p>
+ * Plays that exceed the limit are dropped before the listeners of the sound are collected, and counted by the name of
+ * the rich sound.
+ */
+public final class RateLimiter {
+    private static final @NotNull AtomicInteger nextSoundId = new AtomicInteger();
+    private static final @NotNull LongLongHashMap buckets = new LongLongHashMap(64);
+    private static final @NotNull HashMap<String, Long> throttled = new HashMap<>();
+    private static volatile long currentTick = 0;
+
+    static {
+        PlayMoreSounds.onEnable(() -> Bukkit.getScheduler().runTaskTimer(PlayMoreSounds.getInstance(), () -> {
+            long now = ++currentTick;
+
+            // Full buckets are the same as no bucket, so they are removed from time to time to save memory.
+            if (now % 1200 == 0) {
+                synchronized (RateLimiter.class) {
+                    buckets.removeIf((key, fullAt) -> fullAt <= now);
+                }
+            }
+        }, 1, 1));
+    }
+
+    private RateLimiter() {
+    }
+
+    /**
+     * @return An unique ID for a rich sound to be identified in the buckets.
+     */
+    static int nextSoundId() {
+        return nextSoundId.getAndIncrement();
+    }
+
+    /**
+     * Takes a play from the player's bucket of this sound.
+     *
+     * @param player The player playing the sound.
+     * @param sound  The sound with a cooldown set in {@link RichSoundProperties#cooldownTime()}.
+     * @return Whether the sound can be played.
+     */
+    static synchronized boolean tryAcquire(@NotNull Player player, @NotNull PlayableRichSound sound) {
+        RichSoundProperties properties = sound.getProperties();
+        long interval = properties.cooldownTime();
+        long now = currentTick;
+        long key = ((long) player.getEntityId() << 32) | (sound.soundId & 0xFFFFFFFFL);
+        long fullAt = Math.max(buckets.get(key, now), now);
+
+        if (fullAt - now > (properties.cooldownBurst() - 1) * interval) {
+            throttled.merge(sound.getName(), 1L, Long::sum);
+            return false;
+        }
+
+        buckets.put(key, fullAt + interval);
+        return true;
+    }
+
+    /**
+     * @return A copy of the amount of plays that were dropped, by the name of the rich sound.
+     */
+    public static synchronized @NotNull HashMap<String, Long> getThrottled() {
+        return new HashMap<>(throttled);
+    }
+
+    /**
+     * Sets the throttled plays counters back to 0.
+     */
+    public static synchronized void resetThrottled() {
+        throttled.clear();
+    }
+}
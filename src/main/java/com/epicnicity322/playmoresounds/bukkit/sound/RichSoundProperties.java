@@ -0,0 +1,85 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.epicnicity322.yamlhandler.ConfigurationSection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The behavioral properties of a {@link PlayableRichSound}, read once from its configuration section when the sound is
+ * loaded, so listeners don't need to look up the section every time the sound is played.
+ *
+ * @param preventDefaultSound    "Prevent Default Sound"
+ * @param preventOtherDefault    "Prevent Other Sounds.Default Sound"
+ * @param preventOtherCriteria   "Prevent Other Sounds.Other Criteria"
+ * @param preventOtherFilters    "Prevent Other Sounds.Other Filters"
+ * @param preventOtherConditions "Prevent Other Sounds.Other Conditions"
+ * @param preventDeathSounds     "Prevent Death Sounds"
+ * @param preventTeleportSound   "Prevent Teleport Sound"
+ * @param stopOnExit             "Stop On Exit.Enabled", or null if not set, because the default differs for each sound.
+ * @param stopOnExitDelay        "Stop On Exit.Delay"
+ * @param delay                  "Delay", used by looping sounds.
+ * @param period                 "Period", used by looping sounds.
+ * @param cooldownTime           "Cooldown.Time", the time in ticks for a player to be able to play the sound again.
+ * @param cooldownBurst          "Cooldown.Burst", how many times in a row a player can play the sound before the cooldown.
+ */
+public record RichSoundProperties(boolean preventDefaultSound, boolean preventOtherDefault,
+                                  boolean preventOtherCriteria, boolean preventOtherFilters,
+                                  boolean preventOtherConditions, boolean preventDeathSounds,
+                                  boolean preventTeleportSound, @Nullable Boolean stopOnExit, long stopOnExitDelay,
+                                  long delay, long period, long cooldownTime, int cooldownBurst) {
+    /**
+     * The properties of rich sounds that were not created from a configuration section, all properties are default.
+     */
+    public static final @NotNull RichSoundProperties DEFAULT = new RichSoundProperties(false, false, false, false,
+            false, false, false, null, 0, 0, 0, 0, 1);
+
+    /**
+     * Reads the properties of a rich sound section.
+     *
+     * @param section The section of the rich sound.
+     * @return The properties of the rich sound.
+     */
+    public static @NotNull RichSoundProperties of(@Nullable ConfigurationSection section) {
+        if (section == null) return DEFAULT;
+
+        return new RichSoundProperties(section.getBoolean("Prevent Default Sound").orElse(false),
+                section.getBoolean("Prevent Other Sounds.Default Sound").orElse(false),
+                section.getBoolean("Prevent Other Sounds.Other Criteria").orElse(false),
+                section.getBoolean("Prevent Other Sounds.Other Filters").orElse(false),
+                section.getBoolean("Prevent Other Sounds.Other Conditions").orElse(false),
+                section.getBoolean("Prevent Death Sounds").orElse(false),
+                section.getBoolean("Prevent Teleport Sound").orElse(false),
+                section.getBoolean("Stop On Exit.Enabled").orElse(null),
+                section.getNumber("Stop On Exit.Delay").orElse(0).longValue(),
+                section.getNumber("Delay").orElse(0).longValue(),
+                section.getNumber("Period").orElse(0).longValue(),
+                section.getNumber("Cooldown.Time").orElse(0).longValue(),
+                Math.max(1, section.getNumber("Cooldown.Burst").orElse(1).intValue()));
+    }
+
+    /**
+     * @param def The value to return if "Stop On Exit.Enabled" was not set.
+     * @return Whether the sound should be stopped when the player exits the place it started playing.
+     */
+    public boolean stopOnExit(boolean def) {
+        return stopOnExit == null ? def : stopOnExit;
+    }
+}
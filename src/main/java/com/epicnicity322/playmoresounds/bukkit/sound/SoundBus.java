@@ -0,0 +1,214 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import com.epicnicity322.epicpluginlib.bukkit.reflection.ReflectionUtil;
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.config.Configurations;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.SoundCategory;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.UUID;
+
+/**
+ * A stage between {@link PlayableSound} and the bukkit playSound call, that queues the sounds played in a tick and
+ * sends them all at once at the end of the tick. Sounds that would send the exact same packet to the same player in
+ * the same tick are only sent once.
+ * <p>
+ * The bus is only used if "Performance.Coalesce Sounds" is enabled in config. On PaperMC the queue is flushed on
+ * {@link ServerTickEndEvent}, on other platforms a repeating task flushes it at the start of the next tick.
+ */
+public final class SoundBus {
+    private static final @NotNull LinkedHashSet<QueuedSound> queue = new LinkedHashSet<>();
+    private static volatile boolean loaded = false;
+    private static @Nullable Listener tickEndFlusher;
+    private static @Nullable BukkitTask flushTask;
+    private static long sentPackets = 0;
+    private static long savedPackets = 0;
+
+    private SoundBus() {
+    }
+
+    /**
+     * Starts or stops the bus according to the "Performance.Coalesce Sounds" setting in config.
+     *
+     * @param plugin The plugin to register the flusher.
+     */
+    public static synchronized void load(@NotNull PlayMoreSounds plugin) {
+        if (Configurations.CONFIG.getConfigurationHolder().getConfiguration().getBoolean("Performance.Coalesce Sounds").orElse(false)) {
+            if (loaded) return;
+
+            if (ReflectionUtil.getClass("com.destroystokyo.paper.event.server.ServerTickEndEvent") != null) {
+                tickEndFlusher = new TickEndFlusher();
+                Bukkit.getPluginManager().registerEvents(tickEndFlusher, plugin);
+            } else {
+                flushTask = Bukkit.getScheduler().runTaskTimer(plugin, SoundBus::flush, 1, 1);
+            }
+            loaded = true;
+        } else {
+            if (!loaded) return;
+
+            loaded = false;
+            if (tickEndFlusher != null) HandlerList.unregisterAll(tickEndFlusher);
+            if (flushTask != null) flushTask.cancel();
+            tickEndFlusher = null;
+            flushTask = null;
+            flush();
+        }
+    }
+
+    /**
+     * Plays a sound to a player through the bus. If the bus is not loaded or this is not called on the main thread,
+     * the sound is played right away.
+     *
+     * @param listener The player to play the sound to.
+     * @param location The location to play the sound.
+     * @param sound    The sound to play.
+     * @param category The category of the sound.
+     * @param volume   The volume of the sound.
+     * @param pitch    The pitch of the sound.
+     */
+    public static void playSound(@NotNull Player listener, @NotNull Location location, @NotNull String sound,
+                                 @NotNull SoundCategory category, float volume, float pitch) {
+        if (!loaded || !Bukkit.isPrimaryThread()) {
+            listener.playSound(location, sound, category, volume, pitch);
+            return;
+        }
+
+        var queued = new QueuedSound(listener, location.getWorld(), location.getX(), location.getY(), location.getZ(), sound, category, volume, pitch);
+
+        if (!queue.add(queued)) ++savedPackets;
+    }
+
+    /**
+     * Sends all the sounds queued so far.
+     */
+    public static void flush() {
+        if (queue.isEmpty()) return;
+
+        for (QueuedSound queued : queue) {
+            if (!queued.listener.isOnline()) continue;
+            queued.listener.playSound(new Location(queued.world, queued.x, queued.y, queued.z), queued.sound, queued.category, queued.volume, queued.pitch);
+            ++sentPackets;
+        }
+
+        queue.clear();
+    }
+
+    /**
+     * @return The amount of sound packets sent by the bus.
+     */
+    public static long getSentPackets() {
+        return sentPackets;
+    }
+
+    /**
+     * @return The amount of duplicate sound packets the bus did not send.
+     */
+    public static long getSavedPackets() {
+        return savedPackets;
+    }
+
+    /**
+     * Sets the sent and saved packets counters back to 0.
+     */
+    public static void resetCounters() {
+        sentPackets = 0;
+        savedPackets = 0;
+    }
+
+    /**
+     * A sound queued for a listener. Two queued sounds are equal if they would result in the same packet, so the
+     * location is compared with the same precision the client receives it: an eighth of a block.
+     */
+    private static final class QueuedSound {
+        private final @NotNull Player listener;
+        private final @Nullable World world;
+        private final double x, y, z;
+        private final @NotNull String sound;
+        private final @NotNull SoundCategory category;
+        private final float volume, pitch;
+        private final @NotNull UUID listenerId;
+        private final long packedX, packedY, packedZ;
+        private final int hash;
+
+        private QueuedSound(@NotNull Player listener, @Nullable World world, double x, double y, double z,
+                            @NotNull String sound, @NotNull SoundCategory category, float volume, float pitch) {
+            this.listener = listener;
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.sound = sound;
+            this.category = category;
+            this.volume = volume;
+            this.pitch = pitch;
+            listenerId = listener.getUniqueId();
+            packedX = (long) Math.floor(x * 8.0);
+            packedY = (long) Math.floor(y * 8.0);
+            packedZ = (long) Math.floor(z * 8.0);
+
+            int hash = listenerId.hashCode();
+            hash = 31 * hash + sound.hashCode();
+            hash = 31 * hash + category.hashCode();
+            hash = 31 * hash + Long.hashCode(packedX);
+            hash = 31 * hash + Long.hashCode(packedY);
+            hash = 31 * hash + Long.hashCode(packedZ);
+            hash = 31 * hash + Float.floatToIntBits(volume);
+            hash = 31 * hash + Float.floatToIntBits(pitch);
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof QueuedSound that)) return false;
+
+            return hash == that.hash && packedX == that.packedX && packedY == that.packedY && packedZ == that.packedZ
+                    && Float.floatToIntBits(volume) == Float.floatToIntBits(that.volume)
+                    && Float.floatToIntBits(pitch) == Float.floatToIntBits(that.pitch)
+                    && category == that.category && listenerId.equals(that.listenerId) && sound.equals(that.sound)
+                    && world == that.world;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class TickEndFlusher implements Listener {
+        @EventHandler(priority = EventPriority.MONITOR)
+        public void onServerTickEnd(ServerTickEndEvent event) {
+            flush();
+        }
+    }
+}
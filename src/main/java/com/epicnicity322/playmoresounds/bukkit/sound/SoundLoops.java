@@ -0,0 +1,267 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.PlayMoreSoundsCore;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Plays all looping sounds of {@link PlayableRichSound#playInLoop(Player, Supplier, long, long, Supplier)} through a
+ * single repeating task, instead of one task for every loop.
+ * <p>
+ * Loops are kept in buckets by their period, and each bucket has a list for each tick of the period, so every tick
+ * only the loops that should play in that tick are checked. Loops are also indexed by player, so all loops of a
+ * player can be cancelled at once when they quit.
+ */
+public final class SoundLoops {
+    /**
+     * Periods longer than this are kept in a single list that is checked every tick, so buckets of long periods don't
+     * take much memory.
+     */
+    private static final int MAX_PHASES = 1200;
+    private static final @NotNull HashMap<Long, Bucket> buckets = new HashMap<>();
+    private static final @NotNull HashMap<UUID, ArrayList<SoundLoop>> loopsByPlayer = new HashMap<>();
+    private static final @NotNull ArrayList<SoundLoop> pendingLoops = new ArrayList<>();
+    private static @Nullable BukkitTask engineTask;
+    private static long tick = 0;
+
+    static {
+        PlayMoreSounds.onDisable(SoundLoops::clear);
+    }
+
+    private SoundLoops() {
+    }
+
+    static @NotNull SoundLoop add(@NotNull PlayableRichSound sound, @Nullable Player player, @NotNull Supplier<Location> sourceLocation,
+                                  long delay, long period, @Nullable Supplier<Boolean> breaker) {
+        var main = PlayMoreSounds.getInstance();
+        if (main == null) throw new IllegalStateException("PlayMoreSounds is not loaded.");
+
+        var loop = new SoundLoop(sound, player, sourceLocation, Math.max(1, delay), Math.max(1, period), breaker);
+
+        synchronized (SoundLoops.class) {
+            if (engineTask == null) engineTask = Bukkit.getScheduler().runTaskTimer(main, SoundLoops::tick, 1, 1);
+
+            // Loops are only added to buckets on next tick, in case a loop is added while the buckets are iterated.
+            pendingLoops.add(loop);
+            if (player != null) loopsByPlayer.computeIfAbsent(player.getUniqueId(), k -> new ArrayList<>(2)).add(loop);
+        }
+
+        return loop;
+    }
+
+    private static void tick() {
+        long currentTick = ++tick;
+
+        synchronized (SoundLoops.class) {
+            for (SoundLoop loop : pendingLoops) {
+                // The delay counts from the tick the loop was added.
+                loop.nextRun = currentTick - 1 + loop.delay;
+                buckets.computeIfAbsent(loop.period, Bucket::new).add(loop);
+            }
+            pendingLoops.clear();
+        }
+
+        ArrayList<SoundLoop> removed = null;
+
+        for (Bucket bucket : buckets.values()) {
+            ArrayList<SoundLoop> phase = bucket.phases[(int) (currentTick % bucket.phases.length)];
+            if (phase == null) continue;
+
+            for (int i = 0; i < phase.size(); ++i) {
+                SoundLoop loop = phase.get(i);
+
+                if (run(loop, currentTick)) {
+                    // Swapping with the last loop to remove without shifting the list.
+                    int last = phase.size() - 1;
+                    phase.set(i, phase.get(last));
+                    phase.remove(last);
+                    --i;
+                    --bucket.size;
+
+                    if (loop.player != null) {
+                        if (removed == null) removed = new ArrayList<>();
+                        removed.add(loop);
+                    }
+                }
+            }
+        }
+
+        buckets.values().removeIf(bucket -> bucket.size == 0);
+
+        if (removed != null) {
+            synchronized (SoundLoops.class) {
+                for (SoundLoop loop : removed) {
+                    UUID uuid = loop.player.getUniqueId();
+                    ArrayList<SoundLoop> loops = loopsByPlayer.get(uuid);
+                    if (loops == null) continue;
+                    loops.remove(loop);
+                    if (loops.isEmpty()) loopsByPlayer.remove(uuid);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the loop if it is time to.
+     *
+     * @return Whether the loop should be removed.
+     */
+    private static boolean run(@NotNull SoundLoop loop, long currentTick) {
+        if (loop.cancelled) return true;
+        if (currentTick < loop.nextRun) return false;
+
+        loop.nextRun += loop.period;
+
+        try {
+            if (loop.shouldBreak()) {
+                loop.cancelled = true;
+                return true;
+            }
+
+            loop.sound.play(loop.player, loop.sourceLocation.get());
+        } catch (Throwable t) {
+            PlayMoreSoundsCore.getErrorHandler().report(t, "Sound Loop Error:");
+            loop.cancelled = true;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Cancels all the loops playing to a player.
+     *
+     * @param player The player to cancel the loops.
+     */
+    public static synchronized void cancel(@NotNull Player player) {
+        ArrayList<SoundLoop> loops = loopsByPlayer.remove(player.getUniqueId());
+        if (loops == null) return;
+
+        for (SoundLoop loop : loops) loop.cancelled = true;
+    }
+
+    /**
+     * Cancels all loops and stops the engine task.
+     */
+    public static synchronized void clear() {
+        for (ArrayList<SoundLoop> loops : loopsByPlayer.values()) for (SoundLoop loop : loops) loop.cancelled = true;
+        for (Bucket bucket : buckets.values()) {
+            for (ArrayList<SoundLoop> phase : bucket.phases) {
+                if (phase != null) for (SoundLoop loop : phase) loop.cancelled = true;
+            }
+        }
+        for (SoundLoop loop : pendingLoops) loop.cancelled = true;
+
+        loopsByPlayer.clear();
+        buckets.clear();
+        pendingLoops.clear();
+        if (engineTask != null) engineTask.cancel();
+        engineTask = null;
+    }
+
+    /**
+     * @return The amount of loops currently playing.
+     */
+    public static synchronized int getLoopCount() {
+        int count = pendingLoops.size();
+        for (Bucket bucket : buckets.values()) count += bucket.size;
+        return count;
+    }
+
+    private static final class Bucket {
+        private final @Nullable ArrayList<SoundLoop>[] phases;
+        private int size = 0;
+
+        @SuppressWarnings("unchecked")
+        private Bucket(long period) {
+            phases = new ArrayList[period > MAX_PHASES ? 1 : (int) period];
+        }
+
+        private void add(@NotNull SoundLoop loop) {
+            int index = (int) (loop.nextRun % phases.length);
+            ArrayList<SoundLoop> phase = phases[index];
+
+            if (phase == null) phases[index] = phase = new ArrayList<>();
+            phase.add(loop);
+            ++size;
+        }
+    }
+
+    /**
+     * A sound playing in loop by {@link SoundLoops}.
+     */
+    public static final class SoundLoop {
+        private final @NotNull PlayableRichSound sound;
+        private final @Nullable Player player;
+        private final @NotNull Supplier<Location> sourceLocation;
+        private final long delay;
+        private final long period;
+        private final @Nullable Supplier<Boolean> breaker;
+        private long nextRun;
+        private volatile boolean cancelled = false;
+
+        private SoundLoop(@NotNull PlayableRichSound sound, @Nullable Player player, @NotNull Supplier<Location> sourceLocation,
+                          long delay, long period, @Nullable Supplier<Boolean> breaker) {
+            this.sound = sound;
+            this.player = player;
+            this.sourceLocation = sourceLocation;
+            this.delay = delay;
+            this.period = period;
+            this.breaker = breaker;
+        }
+
+        private boolean shouldBreak() {
+            return !sound.isEnabled() || sound.getChildSounds().isEmpty()
+                    || (player != null && !player.isOnline()) || (breaker != null && breaker.get());
+        }
+
+        /**
+         * Cancels this loop, so the sound doesn't play anymore.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return Whether this loop was cancelled or broke.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return The sound playing in this loop.
+         */
+        public @NotNull PlayableRichSound getSound() {
+            return sound;
+        }
+    }
+}
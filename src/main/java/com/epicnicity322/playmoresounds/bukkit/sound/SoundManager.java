@@ -19,6 +19,7 @@
 package com.epicnicity322.playmoresounds.bukkit.sound;
 
 import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.config.Configurations;
 import com.epicnicity322.playmoresounds.core.sound.SoundOptions;
 import com.epicnicity322.playmoresounds.core.sound.SoundType;
 import com.epicnicity322.playmoresounds.core.util.PMSHelper;
@@ -38,6 +39,14 @@ import java.util.UUID;
 public final class SoundManager {
     private static final @NotNull HashMap<UUID, Boolean> soundStateCache = new HashMap<>();
     private static NamespacedKey soundState;
+    private static volatile boolean audibilityCulling = false;
+
+    static {
+        Runnable configUpdater = () -> audibilityCulling = Configurations.CONFIG.getConfigurationHolder().getConfiguration().getBoolean("Performance.Audibility Culling").orElse(false);
+
+        PlayMoreSounds.onEnable(configUpdater);
+        PlayMoreSounds.onReload(configUpdater);
+    }
 
     private SoundManager() {
     }
@@ -55,6 +64,7 @@ public final class SoundManager {
         var uuid = player.getUniqueId();
 
         soundStateCache.put(uuid, state);
+        ListenerCache.invalidate(player);
 
         if (soundState == null) {
             if (PlayMoreSounds.getInstance() == null)
@@ -132,6 +142,9 @@ public final class SoundManager {
      * <li>Radius = -1 - All players in the server.</li>
      * <li>Radius < -1 - All players in the world.</li>
      * </ul>
+     * <p>
+     * Radius lookups use {@link PlayerGrid} when called on the main thread, unless "Performance.Listener Lookup" is set
+     * to SCAN in config, in which case every player in the world is checked.
      *
      * @param radius   The range of blocks to get the players.
      * @param location The location to calculate the radius.
@@ -139,16 +152,8 @@ public final class SoundManager {
      */
     public static @NotNull Collection<Player> getInRange(double radius, @NotNull Location location) {
         if (radius > 0.0) {
-            radius = square(radius);
-            var inRadius = new HashSet<Player>();
-
-            for (var player : location.getWorld().getPlayers()) {
-                if (distance(location, player.getLocation()) <= radius) {
-                    inRadius.add(player);
-                }
-            }
-
-            return inRadius;
+            if (PlayerGrid.isLoaded() && Bukkit.isPrimaryThread()) return PlayerGrid.getInRange(radius, location);
+            return scanInRange(radius, location);
         } else if (radius == -1.0) {
             // Creating new HashSet because Bukkit#getOnlinePlayers is not immutable.
             return new HashSet<>(Bukkit.getOnlinePlayers());
@@ -159,6 +164,46 @@ public final class SoundManager {
         }
     }
 
+    /**
+     * Caps the radius of a sound to the distance the sound can be heard by the client, about 16 blocks for every
+     * volume point above 1, in case "Performance.Audibility Culling" is enabled in config.
+     * <p>
+     * World radiuses that play at the source location (lower than -1, except -2) are capped as well. Global radiuses
+     * (-1 and -2) are left unchanged, because they are played at each listener's location, so they are always heard.
+     *
+     * @param radius The radius of the sound.
+     * @param volume The volume of the sound.
+     * @return The radius to look for listeners.
+     */
+    public static double cullRadius(double radius, float volume) {
+        if (!audibilityCulling || radius == 0.0 || radius == -1.0 || radius == -2.0) return radius;
+
+        double audibleRadius = Math.max(volume, 1.0f) * 16.0;
+
+        if (radius > audibleRadius || radius < -1.0) return audibleRadius;
+        return radius;
+    }
+
+    /**
+     * Gets the players within a radius by checking the distance of every player in the world.
+     *
+     * @param radius   The radius, must be greater than 0.
+     * @param location The center of the radius.
+     * @return A mutable set with the players within the radius.
+     */
+    static @NotNull HashSet<Player> scanInRange(double radius, @NotNull Location location) {
+        radius = square(radius);
+        var inRadius = new HashSet<Player>();
+
+        for (var player : location.getWorld().getPlayers()) {
+            if (distance(location, player.getLocation()) <= radius) {
+                inRadius.add(player);
+            }
+        }
+
+        return inRadius;
+    }
+
     private static double distance(Location loc1, Location loc2) {
         return square(loc1.getX() - loc2.getX()) + square(loc1.getY() - loc2.getY()) + square(loc1.getZ() - loc2.getZ());
     }
@@ -0,0 +1,177 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import com.epicnicity322.playmoresounds.core.PlayMoreSoundsCore;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+
+/**
+ * A hashed timing wheel that runs delayed sounds. Rather than scheduling a {@link BukkitTask} for every delayed sound,
+ * the sounds are put in the slot of the wheel of the tick they should play, and a single repeating task turns the
+ * wheel once every tick, playing all the sounds of the current slot at once.
+ * <p>
+ * Sounds with delays longer than the wheel size are kept in their slot for as many turns as needed.
+ */
+public final class SoundScheduler {
+    private static final int WHEEL_BITS = 9;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    @SuppressWarnings("unchecked")
+    private static final @NotNull ArrayList<SoundTask>[] wheel = new ArrayList[WHEEL_SIZE];
+    private static int cursor = 0;
+    private static int pending = 0;
+    private static @Nullable BukkitTask wheelTask;
+
+    static {
+        for (int i = 0; i < WHEEL_SIZE; ++i) wheel[i] = new ArrayList<>();
+
+        PlayMoreSounds.onDisable(SoundScheduler::clear);
+    }
+
+    private SoundScheduler() {
+    }
+
+    /**
+     * Schedules a runnable to run on the main thread after the delay.
+     *
+     * @param runnable The runnable to run.
+     * @param delay    The time in ticks to wait before running, must be greater than 0.
+     * @return The task that can be used to cancel the runnable.
+     * @throws IllegalArgumentException If delay is lower than 1.
+     * @throws IllegalStateException    If PlayMoreSounds is not loaded.
+     */
+    public static @NotNull SoundTask schedule(@NotNull Runnable runnable, long delay) {
+        if (delay < 1) throw new IllegalArgumentException("Delay must be greater than 0.");
+
+        var task = new SoundTask(runnable, (delay - 1) >>> WHEEL_BITS);
+
+        synchronized (SoundScheduler.class) {
+            if (wheelTask == null) {
+                var main = PlayMoreSounds.getInstance();
+                if (main == null) throw new IllegalStateException("PlayMoreSounds is not loaded.");
+                wheelTask = Bukkit.getScheduler().runTaskTimer(main, SoundScheduler::tick, 1, 1);
+            }
+
+            wheel[(int) ((cursor + delay) & WHEEL_MASK)].add(task);
+            ++pending;
+        }
+
+        return task;
+    }
+
+    private static void tick() {
+        ArrayList<SoundTask> due;
+
+        synchronized (SoundScheduler.class) {
+            cursor = (cursor + 1) & WHEEL_MASK;
+            ArrayList<SoundTask> slot = wheel[cursor];
+
+            if (slot.isEmpty()) return;
+
+            wheel[cursor] = new ArrayList<>();
+            due = new ArrayList<>(slot.size());
+
+            for (SoundTask task : slot) {
+                if (task.cancelled) {
+                    --pending;
+                } else if (task.rounds > 0) {
+                    // Putting back tasks that still have turns left.
+                    --task.rounds;
+                    wheel[cursor].add(task);
+                } else {
+                    --pending;
+                    due.add(task);
+                }
+            }
+        }
+
+        for (SoundTask task : due) {
+            if (task.cancelled) continue;
+
+            task.done = true;
+            try {
+                task.runnable.run();
+            } catch (Throwable t) {
+                PlayMoreSoundsCore.getErrorHandler().report(t, "Delayed Sound Error:");
+            }
+        }
+    }
+
+    /**
+     * Cancels all scheduled sounds and stops the wheel task.
+     */
+    public static synchronized void clear() {
+        for (ArrayList<SoundTask> slot : wheel) {
+            for (SoundTask task : slot) task.cancelled = true;
+            slot.clear();
+        }
+        pending = 0;
+        if (wheelTask != null) wheelTask.cancel();
+        wheelTask = null;
+    }
+
+    /**
+     * @return The amount of tasks waiting in the wheel, including cancelled tasks that were not removed yet.
+     */
+    public static synchronized int getPendingTasks() {
+        return pending;
+    }
+
+    /**
+     * A handle of a sound scheduled in {@link SoundScheduler}.
+     */
+    public static final class SoundTask {
+        private final @NotNull Runnable runnable;
+        private long rounds;
+        private volatile boolean cancelled = false;
+        private volatile boolean done = false;
+
+        private SoundTask(@NotNull Runnable runnable, long rounds) {
+            this.runnable = runnable;
+            this.rounds = rounds;
+        }
+
+        /**
+         * Cancels this task, so the sound is not played. Nothing happens if the task was already run.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        /**
+         * @return Whether this task was cancelled.
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * @return Whether this task was already run.
+         */
+        public boolean isDone() {
+            return done;
+        }
+    }
+}
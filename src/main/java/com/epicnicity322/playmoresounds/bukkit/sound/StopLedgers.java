@@ -0,0 +1,109 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import com.epicnicity322.playmoresounds.bukkit.PlayMoreSounds;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the sounds that should be stopped when a player exits something, like a biome or a region, so "Stop On Exit"
+ * stops the sounds that were actually played.
+ * <p>
+ * Each player has their own ledger, where sounds are grouped by the owner that played them and then by the delay to
+ * stop them. Ledgers are removed when the player quits, and are only used on the main thread.
+ */
+public final class StopLedgers {
+    private static final @NotNull HashMap<UUID, HashMap<Object, HashMap<Long, HashSet<String>>>> ledgers = new HashMap<>();
+
+    static {
+        PlayMoreSounds.onDisable(ledgers::clear);
+    }
+
+    private StopLedgers() {
+    }
+
+    /**
+     * Adds sounds to be stopped when {@link #stop(Player, Object)} is called for this owner.
+     *
+     * @param player The player the sounds are playing to.
+     * @param owner  What played the sounds, like a region id.
+     * @param delay  The delay in ticks to stop the sounds.
+     * @param sounds The names of the sounds to stop.
+     */
+    public static void add(@NotNull Player player, @NotNull Object owner, long delay, @NotNull Collection<String> sounds) {
+        if (sounds.isEmpty()) return;
+
+        ledgers.computeIfAbsent(player.getUniqueId(), k -> new HashMap<>(4))
+                .computeIfAbsent(owner, k -> new HashMap<>(2))
+                .computeIfAbsent(delay, k -> new HashSet<>()).addAll(sounds);
+    }
+
+    /**
+     * Adds the child sounds of a rich sound to be stopped when {@link #stop(Player, Object)} is called for this owner,
+     * if the sound has "Stop On Exit" enabled.
+     *
+     * @param player The player the sound is playing to.
+     * @param owner  What played the sound, like a region id.
+     * @param sound  The sound that was played.
+     * @param def    Whether to stop the sound if "Stop On Exit.Enabled" is not set.
+     */
+    public static void add(@NotNull Player player, @NotNull Object owner, @NotNull PlayableRichSound sound, boolean def) {
+        RichSoundProperties properties = sound.getProperties();
+        if (!properties.stopOnExit(def)) return;
+
+        var sounds = new HashSet<String>(sound.getChildSounds().size());
+        for (PlayableSound childSound : sound.getChildSounds()) sounds.add(childSound.getSound());
+
+        add(player, owner, properties.stopOnExitDelay(), sounds);
+    }
+
+    /**
+     * Stops the sounds added by this owner, and removes them from the player's ledger.
+     *
+     * @param player The player to stop the sounds.
+     * @param owner  What played the sounds.
+     */
+    public static void stop(@NotNull Player player, @NotNull Object owner) {
+        HashMap<Object, HashMap<Long, HashSet<String>>> ledger = ledgers.get(player.getUniqueId());
+        if (ledger == null) return;
+
+        HashMap<Long, HashSet<String>> byDelay = ledger.remove(owner);
+        if (ledger.isEmpty()) ledgers.remove(player.getUniqueId());
+        if (byDelay == null) return;
+
+        for (Map.Entry<Long, HashSet<String>> entry : byDelay.entrySet())
+            SoundManager.stopSounds(player, entry.getValue(), entry.getKey());
+    }
+
+    /**
+     * Removes the ledger of a player without stopping any sounds, used when the player quits.
+     *
+     * @param player The player to remove the ledger.
+     */
+    public static void remove(@NotNull Player player) {
+        ledgers.remove(player.getUniqueId());
+    }
+}
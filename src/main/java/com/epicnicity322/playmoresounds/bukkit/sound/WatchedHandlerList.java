@@ -0,0 +1,79 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.bukkit.sound;
+
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.RegisteredListener;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * A {@link HandlerList} that keeps track of whether it has any registered listener, so sounds can skip creating and
+ * calling their events when nobody is listening to them.
+ */
+final class WatchedHandlerList extends HandlerList {
+    private volatile boolean dirty = true;
+    private volatile boolean hasListeners = false;
+
+    /**
+     * @return Whether there is any listener registered to this handler list.
+     */
+    boolean hasListeners() {
+        if (dirty) {
+            // Clearing the flag before reading the listeners, so a register that happens in between marks it again.
+            dirty = false;
+            hasListeners = getRegisteredListeners().length != 0;
+        }
+
+        return hasListeners;
+    }
+
+    @Override
+    public synchronized void register(@NotNull RegisteredListener listener) {
+        super.register(listener);
+        dirty = true;
+    }
+
+    @Override
+    public void registerAll(@NotNull Collection<RegisteredListener> listeners) {
+        super.registerAll(listeners);
+        dirty = true;
+    }
+
+    @Override
+    public synchronized void unregister(@NotNull RegisteredListener listener) {
+        super.unregister(listener);
+        dirty = true;
+    }
+
+    @Override
+    public synchronized void unregister(@NotNull Plugin plugin) {
+        super.unregister(plugin);
+        dirty = true;
+    }
+
+    @Override
+    public synchronized void unregister(@NotNull Listener listener) {
+        super.unregister(listener);
+        dirty = true;
+    }
+}
@@ -415,6 +415,12 @@ public enum Configurations {
             "    Max Showing Borders: 10\n" +
             "    # The time in ticks of how long the border should be shown.\n" +
             "    Showing Time: 140\n" +
+            "    # The distance in blocks between each border particle. Higher values show less particles on big regions.\n" +
+            "    Stride: 1\n" +
+            "    # Only the border particles within this distance in blocks of the player are shown.\n" +
+            "    Render Distance: 32\n" +
+            "    # The max amount of border particles sent to a player every tick.\n" +
+            "    Max Particles Per Tick: 200\n" +
             "  # The max area in m³ a region can have.\n" +
             "  # Use permission 'playmoresounds.region.create.unlimited.area' to bypass.\n" +
             "  Max Area: 15625\n" +
@@ -423,12 +429,50 @@ public enum Configurations {
             "  # The max amount of regions a single player can have.\n" +
             "  # Use permission 'playmoresounds.region.create.unlimited.regions' to bypass.\n" +
             "  Max Regions: 5\n" +
+            "  # How regions are stored in PlayMoreSounds' Data folder:\n" +
+            "  # YAML - One file for each region in Data/Regions folder. Region files can be edited and are read again on\n" +
+            "  #reload.\n" +
+            "  # BINARY - All regions in a single Data/regions.dat file, only changed regions are written. Much faster to load\n" +
+            "  #and save if you have lots of regions. Region files are migrated to regions.dat automatically, and exported back\n" +
+            "  #to Data/Regions folder if you change to YAML again.\n" +
+            "  Storage: YAML\n" +
             "  # The region selection tool properties.\n" +
             "  Wand:\n" +
             "    Name: '&6&l&nRegion Selection Tool'\n" +
             "    Glowing: true\n" +
             "    Material: FEATHER\n" +
             "\n" +
+            "# Settings that change how PlayMoreSounds works internally, for better performance.\n" +
+            "Performance:\n" +
+            "  # How players inside a sound's radius are found.\n" +
+            "  # GRID - Players are indexed by the chunk they are in, so only chunks within the radius are checked.\n" +
+            "  # SCAN - The distance of every player in the world is checked.\n" +
+            "  Listener Lookup: GRID\n" +
+            "  # Queue the sounds played in a tick and send them all at the end of the tick, skipping sounds that would\n" +
+            "  #be sent more than once to the same player, with the same location, volume and pitch.\n" +
+            "  # Useful if many sounds are triggered at once, like entity jump sounds in mob farms.\n" +
+            "  Coalesce Sounds: false\n" +
+            "  # The time in ticks players permissions to listen and sound toggle state are cached for, when validating\n" +
+            "  #who can hear a sound. Changes made by other plugins may take this long to be noticed.\n" +
+            "  # Set to 0 to disable the cache.\n" +
+            "  Listener Cache Time: 100\n" +
+            "  # Players can't hear sounds further than 16 blocks for every volume point above 1. With this enabled,\n" +
+            "  #sounds with a bigger radius are only sent to players in hearing distance.\n" +
+            "  Audibility Culling: false\n" +
+            "  # Find the region and biome changes of moving players in another thread, so only the resulting region\n" +
+            "  #events and biome sounds are run in the main thread.\n" +
+            "  # Region enter and leave events are called after the player moved, so they can't cancel the movement.\n" +
+            "  #Keep this disabled if you use plugins that cancel these events to keep players in or out of regions.\n" +
+            "  Async Transitions: false\n" +
+            "  # Sounds of async events, like chat, are queued and played by the main thread every tick.\n" +
+            "  Async Sound Queue:\n" +
+            "    # The max amount of sounds waiting to be played.\n" +
+            "    Max Size: 1000\n" +
+            "    # What to do with sounds when the queue is full:\n" +
+            "    # DROP_NEWEST - The sound being queued is not played.\n" +
+            "    # DROP_OLDEST - The oldest sound in the queue is not played, so the new one can be queued.\n" +
+            "    Overflow Policy: DROP_NEWEST\n" +
+            "\n" +
             "# Update scheduler\n" +
             "Updater:\n" +
             "  Enabled: true\n" +
@@ -2470,6 +2514,12 @@ public enum Configurations {
             "  #as well, so you can use this plugin if you want to play sounds just for one event and don't worry about#\n" +
             "  #performance being spent on things you don't use.                                                       #\n" +
             "  Enabled: true                                                                                           #\n" +
+            "  # Limits how often a player can play this sound. Time is the time in ticks for a play to be available   #\n" +
+            "  #again, and Burst is how many times in a row the sound can be played before it starts being limited.    #\n" +
+            "  # Plays over the limit are ignored. Set Time to 0 or remove this section for no limit.                  #\n" +
+            "  Cooldown:                                                                                               #\n" +
+            "    Time: 0                                                                                               #\n" +
+            "    Burst: 1                                                                                              #\n" +
             "  # This is a list of sounds that will be played. You can copy and paste the options below to play        #\n" +
             "  #multiple sounds, each section must have a different name, here I numbered them just for organization.  #\n" +
             "  Sounds:                                                                                                 #\n" +
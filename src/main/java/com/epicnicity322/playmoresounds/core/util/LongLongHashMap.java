@@ -0,0 +1,200 @@
+/*
+ * PlayMoreSounds - A bukkit plugin that manages and plays sounds.
+ * Copyright (C) 2022 Christiano Rangel
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.epicnicity322.playmoresounds.core.util;
+
+import java.util.Arrays;
+
+/**
+ * A hash map of primitive long keys to primitive long values, using open addressing with linear probing. Unlike a
+ * {@link java.util.HashMap}, no objects are created for keys, values or entries.
+ * <p>
+ * This map is not thread safe.
+ */
+public final class LongLongHashMap {
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size = 0;
+    private int mask;
+
+    public LongLongHashMap() {
+        this(16);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * @param key          The key to get the value.
+     * @param defaultValue The value to return if the key is not in the map.
+     * @return The value of the key, or the default value.
+     */
+    public long get(long key, long defaultValue) {
+        int index = hash(key) & mask;
+
+        while (used[index]) {
+            if (keys[index] == key) return values[index];
+            index = (index + 1) & mask;
+        }
+
+        return defaultValue;
+    }
+
+    /**
+     * @param key   The key to set the value.
+     * @param value The value of the key.
+     */
+    public void put(long key, long value) {
+        int index = hash(key) & mask;
+
+        while (used[index]) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+
+        used[index] = true;
+        keys[index] = key;
+        values[index] = value;
+
+        // Keeping load factor under 0.5.
+        if (++size > (mask + 1) >>> 1) rehash(keys.length << 1);
+    }
+
+    /**
+     * @param key          The key to remove.
+     * @param defaultValue The value to return if the key is not in the map.
+     * @return The value the key had, or the default value.
+     */
+    public long remove(long key, long defaultValue) {
+        int index = hash(key) & mask;
+
+        while (used[index]) {
+            if (keys[index] == key) {
+                long value = values[index];
+                delete(index);
+                return value;
+            }
+            index = (index + 1) & mask;
+        }
+
+        return defaultValue;
+    }
+
+    private void delete(int index) {
+        int hole = index;
+        int next = (hole + 1) & mask;
+
+        // Shifting back the entries after the hole that would no longer be found through linear probing.
+        while (used[next]) {
+            int ideal = hash(keys[next]) & mask;
+
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        used[hole] = false;
+        --size;
+    }
+
+    /**
+     * Removes all entries that match the filter.
+     *
+     * @param filter The filter of entries to remove.
+     */
+    public void removeIf(EntryFilter filter) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        int removed = 0;
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldUsed[i] && filter.test(oldKeys[i], oldValues[i])) {
+                oldUsed[i] = false;
+                ++removed;
+            }
+        }
+
+        // Entries must be reinserted, so linear probing chains are not broken by the removed entries.
+        if (removed != 0) {
+            rehash(oldKeys.length);
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        size = 0;
+
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (!oldUsed[i]) continue;
+
+            int index = hash(oldKeys[i]) & mask;
+            while (used[index]) index = (index + 1) & mask;
+            used[index] = true;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+            ++size;
+        }
+    }
+
+    /**
+     * Removes all entries of this map.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * @return The amount of entries in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    @FunctionalInterface
+    public interface EntryFilter {
+        boolean test(long key, long value);
+    }
+}